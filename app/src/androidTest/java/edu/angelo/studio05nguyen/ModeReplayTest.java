@@ -0,0 +1,265 @@
+package edu.angelo.studio05nguyen;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays a touch log into every mode, drawing a frame after each event,
+ * and logs how long the modes took to handle the events and to draw.
+ * The log is a scripted session written by writeSession with TouchLog.Writer, in the same format
+ * TouchRecorder saves: taps, a one-finger arc, a two-finger drag over GeometryMode's points and
+ * a drag of BezierMode's first point that rests before lifting, all laid out for a WIDTH by HEIGHT View.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ModeReplayTest {
+
+    private static final String TAG = "ModeReplayTest";
+
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 1500;
+
+    private Context context;
+
+    /**
+     * The touch log replayed into every mode.
+     */
+    private byte[] log;
+
+    /**
+     * The number of events in the log.
+     */
+    private int eventCount;
+
+    @Before
+    public void setUp() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TouchLog.Writer writer = new TouchLog.Writer(bytes);
+        eventCount = writeSession(writer);
+        writer.close();
+        log = bytes.toByteArray();
+    }
+
+    @Test
+    public void replaysIntoSketchyView() throws IOException {
+        replayInto("SketchyView", new SketchyView(context));
+    }
+
+    @Test
+    public void replaysIntoFractalView() throws IOException {
+        replayInto("FractalView", new FractalView(context));
+    }
+
+    @Test
+    public void replaysIntoPointsMode() throws IOException {
+        replayInto("PointsMode", new PointsMode(context));
+    }
+
+    @Test
+    public void replaysIntoAveragingMode() throws IOException {
+        replayInto("AveragingMode", new AveragingMode(context));
+    }
+
+    @Test
+    public void replaysIntoGeometryMode() throws IOException {
+        replayInto("GeometryMode", new GeometryMode(context));
+    }
+
+    @Test
+    public void replaysIntoBezierMode() throws IOException {
+        replayInto("BezierMode", new BezierMode(context));
+    }
+
+    /**
+     * Replays the log into a mode as fast as it can take it, drawing after every event, and logs the timings.
+     * @param name   The name of the mode, for the log.
+     * @param mode   The mode's View, which handles its own touches.
+     * @throws IOException   If the log can't be read.
+     */
+    private void replayInto(String name, View mode) throws IOException {
+        mode.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mode.layout(0, 0, WIDTH, HEIGHT);
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        DrawingSink sink = new DrawingSink(mode, new Canvas(bitmap));
+
+        // Draw once so the modes place their starting points, then remember where they were.
+        mode.draw(sink.canvas);
+        float[] before = ((SnapshotMode) mode).saveSnapshot();
+
+        TouchReplay replay = TouchReplay.run(new TouchLog.Reader(new ByteArrayInputStream(log)), sink, false);
+        bitmap.recycle();
+
+        double touchMillis = (replay.handlingNanos - sink.drawNanos) / 1e6 / replay.events;
+        double drawMillis = sink.drawNanos / 1e6 / replay.events;
+        Log.i(TAG, String.format("%s: %s; %.3f ms touch + %.3f ms draw per event, %.3f ms worst draw, %.0f frames/s",
+                name, replay, touchMillis, drawMillis, sink.worstDrawNanos / 1e6,
+                sink.drawNanos == 0 ? 0.0 : replay.events * 1e9 / sink.drawNanos));
+
+        assertEquals(eventCount, replay.events);
+        assertFalse(name + " should have changed", Arrays.equals(before, ((SnapshotMode) mode).saveSnapshot()));
+    }
+
+    /**
+     * Writes the scripted session.  Events are 8 ms apart while a finger moves, like a 120 Hz touch screen.
+     * @param writer   Where to write the session.
+     * @return   The number of events written.
+     * @throws IOException   If the log can't be written.
+     */
+    private static int writeSession(TouchLog.Writer writer) throws IOException {
+        int events = 0;
+        long time = 1000;
+        int[] oneId = {0};
+        int[] twoIds = {0, 1};
+
+        // Six taps around the screen.
+        float[][] taps = {
+                {0.2f * WIDTH, 0.2f * HEIGHT}, {0.8f * WIDTH, 0.2f * HEIGHT}, {0.5f * WIDTH, 0.47f * HEIGHT},
+                {0.2f * WIDTH, 0.8f * HEIGHT}, {0.8f * WIDTH, 0.8f * HEIGHT}, {0.5f * WIDTH, 0.67f * HEIGHT}
+        };
+        for (float[] tap : taps) {
+            long down = time;
+            writer.write(MotionEvent.ACTION_DOWN, down, 1, 1, oneId, new long[] {time}, new float[] {tap[0]}, new float[] {tap[1]});
+            time += 80;
+            writer.write(MotionEvent.ACTION_UP, down, 1, 1, oneId, new long[] {time}, new float[] {tap[0]}, new float[] {tap[1]});
+            time += 300;
+            events += 2;
+        }
+
+        // One finger sweeping an arc up from GeometryMode's point A, three samples to an event.
+        long down = time;
+        float x = WIDTH / 3.0f;
+        float y = 2.0f * HEIGHT / 3.0f;
+        writer.write(MotionEvent.ACTION_DOWN, down, 1, 1, oneId, new long[] {time}, new float[] {x}, new float[] {y});
+        events += 1;
+        long[] times = new long[3];
+        float[] xs = new float[3];
+        float[] ys = new float[3];
+        for (int event = 0; event < 40; ++event) {
+            for (int s = 0; s < 3; ++s) {
+                time += 8;
+                double angle = (3 * event + s + 1) / 60.0;
+                x = WIDTH / 2.0f - WIDTH / 6.0f * (float) Math.cos(angle);
+                y = 2.0f * HEIGHT / 3.0f - 0.27f * HEIGHT * (float) Math.sin(angle);
+                times[s] = time;
+                xs[s] = x;
+                ys[s] = y;
+            }
+            writer.write(MotionEvent.ACTION_MOVE, down, 1, 3, oneId, times, xs, ys);
+            events += 1;
+        }
+        time += 8;
+        writer.write(MotionEvent.ACTION_UP, down, 1, 1, oneId, new long[] {time}, new float[] {x}, new float[] {y});
+        time += 300;
+        events += 1;
+
+        // Two fingers dragging GeometryMode's starting points A and B at once, two samples to an event.
+        down = time;
+        float ax = WIDTH / 3.0f;
+        float ay = 2.0f * HEIGHT / 3.0f;
+        float bx = 2.0f * WIDTH / 3.0f;
+        float by = HEIGHT / 3.0f;
+        writer.write(MotionEvent.ACTION_DOWN, down, 1, 1, oneId, new long[] {time}, new float[] {ax}, new float[] {ay});
+        time += 40;
+        // The second finger is pointer index 1.
+        writer.write(MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), down, 2, 1, twoIds,
+                new long[] {time}, new float[] {ax, bx}, new float[] {ay, by});
+        events += 2;
+        times = new long[2];
+        xs = new float[4];
+        ys = new float[4];
+        for (int event = 0; event < 30; ++event) {
+            for (int s = 0; s < 2; ++s) {
+                time += 8;
+                ax += 4.0f;
+                ay -= 6.0f;
+                bx -= 3.0f;
+                by += 5.0f;
+                times[s] = time;
+                xs[2 * s] = ax;
+                ys[2 * s] = ay;
+                xs[2 * s + 1] = bx;
+                ys[2 * s + 1] = by;
+            }
+            writer.write(MotionEvent.ACTION_MOVE, down, 2, 2, twoIds, times, xs, ys);
+            events += 1;
+        }
+        time += 8;
+        writer.write(MotionEvent.ACTION_POINTER_UP | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), down, 2, 1, twoIds,
+                new long[] {time}, new float[] {ax, bx}, new float[] {ay, by});
+        time += 40;
+        writer.write(MotionEvent.ACTION_UP, down, 1, 1, oneId, new long[] {time}, new float[] {ax}, new float[] {ay});
+        time += 300;
+        events += 2;
+
+        // A drag from BezierMode's first point that rests for half a second before lifting.
+        down = time;
+        x = WIDTH / 3.0f;
+        y = HEIGHT / 3.0f;
+        writer.write(MotionEvent.ACTION_DOWN, down, 1, 1, oneId, new long[] {time}, new float[] {x}, new float[] {y});
+        events += 1;
+        for (int event = 0; event < 25; ++event) {
+            time += 16;
+            x -= 5.0f;
+            y -= 8.0f;
+            writer.write(MotionEvent.ACTION_MOVE, down, 1, 1, oneId, new long[] {time}, new float[] {x}, new float[] {y});
+            events += 1;
+        }
+        time += 500;
+        writer.write(MotionEvent.ACTION_UP, down, 1, 1, oneId, new long[] {time}, new float[] {x}, new float[] {y});
+        events += 1;
+        return events;
+    }
+
+    /**
+     * Hands each replayed event to a mode, then draws the mode and times the draw.
+     */
+    private static final class DrawingSink implements TouchReplay.Sink {
+
+        private final View mode;
+
+        private final MotionEventReplayer replayer;
+
+        final Canvas canvas;
+
+        /** The total time spent drawing, in nanoseconds. */
+        long drawNanos;
+
+        /** The longest time spent drawing one frame, in nanoseconds. */
+        long worstDrawNanos;
+
+        DrawingSink(View mode, Canvas canvas) {
+            this.mode = mode;
+            this.canvas = canvas;
+            replayer = new MotionEventReplayer(mode, (View.OnTouchListener) mode);
+        }
+
+        @Override
+        public void onEvent(TouchLog.Reader event) {
+            replayer.onEvent(event);
+            long before = System.nanoTime();
+            mode.draw(canvas);
+            long took = System.nanoTime() - before;
+            drawNanos += took;
+            worstDrawNanos = Math.max(worstDrawNanos, took);
+        }
+    }
+}
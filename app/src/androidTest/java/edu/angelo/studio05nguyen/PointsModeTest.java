@@ -0,0 +1,142 @@
+package edu.angelo.studio05nguyen;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks what PointsMode draws after plotting, undoing and redoing points.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PointsModeTest {
+
+    private static final int SIZE = 400;
+
+    private PointsMode mode;
+
+    private Bitmap bitmap;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mode = new PointsMode(context);
+        bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+    }
+
+    @Test
+    public void drawsALonePointEveryTime() {
+        // Switching away from the mode and back draws it again without any new touches.
+        tap(100.0f, 100.0f);
+        draw();
+        draw();
+        assertTrue(hasInkNear(100.0f, 100.0f));
+    }
+
+    @Test
+    public void drawsALonePointAfterRestoring() {
+        tap(100.0f, 100.0f);
+        draw();
+
+        // Rotating the screen builds a new PointsMode from the old one's snapshot.
+        PointsMode restored = new PointsMode(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        restored.restoreSnapshot(mode.saveSnapshot());
+        mode = restored;
+        draw();
+        assertTrue(hasInkNear(100.0f, 100.0f));
+    }
+
+    @Test
+    public void drawsOnePointAfterUndoingTheSecond() {
+        tap(100.0f, 100.0f);
+        draw();
+        tap(300.0f, 300.0f);
+        draw();
+
+        assertTrue(mode.undo());
+        draw();
+        assertTrue("the remaining point's label should be drawn", hasInkNear(100.0f, 100.0f));
+        assertFalse("the undone point's label should be gone", hasInkNear(300.0f, 300.0f));
+    }
+
+    @Test
+    public void drawsOnePointAfterRedoingTheFirst() {
+        tap(100.0f, 100.0f);
+        draw();
+
+        assertTrue(mode.undo());
+        draw();
+        assertFalse(hasInkNear(100.0f, 100.0f));
+
+        assertTrue(mode.redo());
+        draw();
+        assertTrue(hasInkNear(100.0f, 100.0f));
+    }
+
+    @Test
+    public void reportsWhatCanBeUndoneAndRedone() {
+        final int[] changes = new int[1];
+        mode.setOnHistoryChangedListener(new Runnable() {
+            @Override
+            public void run() {
+                changes[0] += 1;
+            }
+        });
+        assertFalse(mode.canUndo());
+        assertFalse(mode.canRedo());
+
+        tap(100.0f, 100.0f);
+        assertTrue(mode.canUndo());
+        assertFalse(mode.canRedo());
+        assertEquals(1, changes[0]);
+
+        assertTrue(mode.undo());
+        assertFalse(mode.canUndo());
+        assertTrue(mode.canRedo());
+        assertEquals(2, changes[0]);
+
+        assertFalse(mode.undo());
+        assertEquals(2, changes[0]);
+    }
+
+    private void tap(float x, float y) {
+        long now = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, x, y, 0);
+        mode.onTouch(mode, down);
+        down.recycle();
+        MotionEvent up = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, x, y, 0);
+        mode.onTouch(mode, up);
+        up.recycle();
+    }
+
+    private void draw() {
+        mode.onDraw(new Canvas(bitmap));
+    }
+
+    /**
+     * @param x The x coordinate of a point.
+     * @param y The y coordinate of a point.
+     * @return  Whether anything other than the white background was drawn around the point.
+     */
+    private boolean hasInkNear(float x, float y) {
+        for (int row = (int) y - 30; row <= (int) y + 30; ++row) {
+            for (int column = (int) x - 30; column <= (int) x + 30; ++column) {
+                if (bitmap.getPixel(column, row) != Color.WHITE) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
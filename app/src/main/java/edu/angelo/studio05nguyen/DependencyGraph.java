@@ -0,0 +1,221 @@
+package edu.angelo.studio05nguyen;
+
+import java.util.Arrays;
+
+/**
+ * Holds geometry that is derived from other geometry, such as a midpoint or a circle through two points,
+ * and recomputes each derived element only when one of its inputs has changed.
+ * Every element is a node with a few float values.  Input nodes are set from outside;
+ * derived nodes are computed by a Rule from the nodes they depend on.
+ * Changing an input marks everything downstream of it dirty, and a dirty node is recomputed
+ * the next time one of its values is asked for.
+ */
+class DependencyGraph {
+
+    /**
+     * Computes the values of a derived node.
+     */
+    interface Rule {
+
+        /**
+         * Computes a node from its inputs, reading them with get and writing the results with store.
+         * @param graph   The graph the node is in.
+         * @param node    The node to compute.
+         */
+        void compute(DependencyGraph graph, int node);
+    }
+
+    /**
+     * The values of all nodes, one after another.
+     */
+    private float[] values = new float[16];
+
+    /**
+     * The number of values used so far.
+     */
+    private int valueCount;
+
+    /**
+     * The number of nodes so far.
+     */
+    private int nodeCount;
+
+    // Per node: where its values start, how it is computed (null for inputs) and whether it is out of date.
+    private int[] offsets = new int[8];
+    private Rule[] rules = new Rule[8];
+    private boolean[] dirty = new boolean[8];
+
+    // Per node: the nodes it is computed from and the nodes computed from it.
+    private int[][] inputs = new int[8][];
+    private int[][] dependents = new int[8][];
+    private int[] dependentCounts = new int[8];
+
+    /**
+     * Work space for marking nodes dirty without allocating.
+     */
+    private int[] stack = new int[8];
+
+    /**
+     * The number of times any Rule has run, for seeing how much work was saved.
+     */
+    private int recomputations;
+
+    /**
+     * Adds a node that is set from outside.
+     * @param size   The number of values the node has.
+     * @return   The new node.
+     */
+    int addInput(int size) {
+        return addNode(size, null, new int[0]);
+    }
+
+    /**
+     * Adds a node that is computed from other nodes.
+     * @param size        The number of values the node has.
+     * @param rule        How to compute the node.
+     * @param fromNodes   The nodes it is computed from, which must already be in the graph.
+     * @return   The new node.
+     */
+    int addDerived(int size, Rule rule, int... fromNodes) {
+        int node = addNode(size, rule, fromNodes.clone());
+        for (int input : fromNodes) {
+            if (dependentCounts[input] == dependents[input].length) {
+                dependents[input] = Arrays.copyOf(dependents[input], 2 * dependents[input].length + 1);
+            }
+            dependents[input][dependentCounts[input]] = node;
+            dependentCounts[input] += 1;
+        }
+        return node;
+    }
+
+    /**
+     * Adds a node of either kind.
+     * @param size        The number of values the node has.
+     * @param rule        How to compute the node, or null for an input.
+     * @param fromNodes   The nodes it is computed from.
+     * @return   The new node.
+     */
+    private int addNode(int size, Rule rule, int[] fromNodes) {
+        if (nodeCount == offsets.length) {
+            int capacity = 2 * nodeCount;
+            offsets = Arrays.copyOf(offsets, capacity);
+            rules = Arrays.copyOf(rules, capacity);
+            dirty = Arrays.copyOf(dirty, capacity);
+            inputs = Arrays.copyOf(inputs, capacity);
+            dependents = Arrays.copyOf(dependents, capacity);
+            dependentCounts = Arrays.copyOf(dependentCounts, capacity);
+            stack = new int[capacity];
+        }
+        if (valueCount + size > values.length) {
+            values = Arrays.copyOf(values, Math.max(2 * values.length, valueCount + size));
+        }
+        int node = nodeCount;
+        offsets[node] = valueCount;
+        rules[node] = rule;
+        dirty[node] = rule != null;
+        inputs[node] = fromNodes;
+        dependents[node] = new int[0];
+        nodeCount += 1;
+        valueCount += size;
+        return node;
+    }
+
+    /**
+     * Sets one value of an input node, marking everything computed from it dirty if it changed.
+     * @param node    The input node.
+     * @param index   Which of its values to set.
+     * @param value   The new value.
+     */
+    void set(int node, int index, float value) {
+        if (values[offsets[node] + index] != value) {
+            values[offsets[node] + index] = value;
+            markDependentsDirty(node);
+        }
+    }
+
+    /**
+     * Sets both coordinates of an input node that is a point.
+     * @param node   The input node.
+     * @param x      The new x coordinate.
+     * @param y      The new y coordinate.
+     */
+    void setPoint(int node, float x, float y) {
+        set(node, 0, x);
+        set(node, 1, y);
+    }
+
+    /**
+     * Gives one value of a node, first recomputing the node if it is out of date.
+     * @param node    The node.
+     * @param index   Which of its values to get.
+     * @return   The value.
+     */
+    float get(int node, int index) {
+        if (dirty[node]) {
+            recompute(node);
+        }
+        return values[offsets[node] + index];
+    }
+
+    /**
+     * Stores one computed value of a node.  Only Rules should call this.
+     * @param node    The node being computed.
+     * @param index   Which of its values to store.
+     * @param value   The computed value.
+     */
+    void store(int node, int index, float value) {
+        values[offsets[node] + index] = value;
+    }
+
+    /**
+     * Tells whether a node will be recomputed the next time it is used.
+     * @param node   The node.
+     * @return   True if the node is out of date.
+     */
+    boolean isDirty(int node) {
+        return dirty[node];
+    }
+
+    /**
+     * Gives the number of times any Rule has run.
+     * @return   The number of recomputations.
+     */
+    int recomputations() {
+        return recomputations;
+    }
+
+    /**
+     * Brings a node up to date, along with whatever it is computed from.
+     * @param node   The dirty node.
+     */
+    private void recompute(int node) {
+        for (int input : inputs[node]) {
+            if (dirty[input]) {
+                recompute(input);
+            }
+        }
+        rules[node].compute(this, node);
+        dirty[node] = false;
+        recomputations += 1;
+    }
+
+    /**
+     * Marks everything downstream of a node dirty.  A node that is already dirty
+     * has everything downstream of it dirty too, so the search stops there.
+     * @param node   The node that changed.
+     */
+    private void markDependentsDirty(int node) {
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            for (int i = 0; i < dependentCounts[current]; ++i) {
+                int dependent = dependents[current][i];
+                if (!dirty[dependent]) {
+                    dirty[dependent] = true;
+                    stack[top++] = dependent;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package edu.angelo.studio05nguyen;
+
+/**
+ * A log of edits for undo and redo, kept in primitive arrays.
+ * Each edit records only what it changed: a kind, the index of what it changed,
+ * and the old and new coordinates, so recording, undoing and redoing an edit all take
+ * constant time and about 21 bytes.  An edit that can't be undone from that alone,
+ * such as clearing everything, can carry a checkpoint of the whole state.
+ * Once the log is full, the oldest edits are forgotten.
+ */
+class EditHistory {
+
+    /**
+     * The most edits remembered.
+     */
+    private final int capacity;
+
+    // The edits, in a ring buffer starting at first.
+    private final byte[] kinds;
+    private final int[] indexes;
+    private final float[] oldXs;
+    private final float[] oldYs;
+    private final float[] newXs;
+    private final float[] newYs;
+    private final float[][] checkpoints;
+
+    /**
+     * Where the oldest remembered edit is in the ring buffer.
+     */
+    private int first;
+
+    /**
+     * The number of edits remembered, including undone ones that can still be redone.
+     */
+    private int size;
+
+    /**
+     * The number of edits currently applied.  Edits from here to size can be redone.
+     */
+    private int applied;
+
+    /**
+     * Sets up an empty history.
+     * @param capacity   The most edits to remember.
+     */
+    EditHistory(int capacity) {
+        this.capacity = capacity;
+        kinds = new byte[capacity];
+        indexes = new int[capacity];
+        oldXs = new float[capacity];
+        oldYs = new float[capacity];
+        newXs = new float[capacity];
+        newYs = new float[capacity];
+        checkpoints = new float[capacity][];
+    }
+
+    /**
+     * Records an edit that was just made, forgetting anything that could have been redone.
+     * @param kind    What sort of edit it was, as defined by the mode.
+     * @param index   What it changed, such as the number of a point.
+     * @param oldX    The x coordinate before the edit.
+     * @param oldY    The y coordinate before the edit.
+     * @param newX    The x coordinate after the edit.
+     * @param newY    The y coordinate after the edit.
+     * @return   The slot the edit is recorded in.
+     */
+    int record(int kind, int index, float oldX, float oldY, float newX, float newY) {
+        for (int i = applied; i < size; ++i) {
+            checkpoints[slot(i)] = null;
+        }
+        size = applied;
+        if (size == capacity) {
+            // Forget the oldest edit to make room.
+            checkpoints[first] = null;
+            first = (first + 1) % capacity;
+            size -= 1;
+            applied -= 1;
+        }
+        int slot = slot(size);
+        kinds[slot] = (byte) kind;
+        indexes[slot] = index;
+        oldXs[slot] = oldX;
+        oldYs[slot] = oldY;
+        newXs[slot] = newX;
+        newYs[slot] = newY;
+        checkpoints[slot] = null;
+        size += 1;
+        applied = size;
+        return slot;
+    }
+
+    /**
+     * Records an edit along with a checkpoint of the whole state from before it.
+     * @param kind         What sort of edit it was.
+     * @param checkpoint   The state before the edit, which the history now owns.
+     * @return   The slot the edit is recorded in.
+     */
+    int recordCheckpoint(int kind, float[] checkpoint) {
+        int slot = record(kind, 0, 0.0f, 0.0f, 0.0f, 0.0f);
+        checkpoints[slot] = checkpoint;
+        return slot;
+    }
+
+    /**
+     * Tells whether there is an edit to undo.
+     * @return   True if undo would do something.
+     */
+    boolean canUndo() {
+        return applied > 0;
+    }
+
+    /**
+     * Tells whether there is an edit to redo.
+     * @return   True if redo would do something.
+     */
+    boolean canRedo() {
+        return applied < size;
+    }
+
+    /**
+     * Steps back over the last applied edit.  The caller reverts it using the slot's old values.
+     * @return   The slot of the edit to revert, or -1 if there is none.
+     */
+    int undo() {
+        if (!canUndo()) {
+            return -1;
+        }
+        applied -= 1;
+        return slot(applied);
+    }
+
+    /**
+     * Steps forward over the next undone edit.  The caller reapplies it using the slot's new values.
+     * @return   The slot of the edit to reapply, or -1 if there is none.
+     */
+    int redo() {
+        if (!canRedo()) {
+            return -1;
+        }
+        applied += 1;
+        return slot(applied - 1);
+    }
+
+    /**
+     * Forgets every edit.
+     */
+    void clear() {
+        for (int i = 0; i < size; ++i) {
+            checkpoints[slot(i)] = null;
+        }
+        first = 0;
+        size = 0;
+        applied = 0;
+    }
+
+    int kind(int slot) {
+        return kinds[slot];
+    }
+
+    int index(int slot) {
+        return indexes[slot];
+    }
+
+    float oldX(int slot) {
+        return oldXs[slot];
+    }
+
+    float oldY(int slot) {
+        return oldYs[slot];
+    }
+
+    float newX(int slot) {
+        return newXs[slot];
+    }
+
+    float newY(int slot) {
+        return newYs[slot];
+    }
+
+    float[] checkpoint(int slot) {
+        return checkpoints[slot];
+    }
+
+    /**
+     * Finds where the i-th remembered edit is in the ring buffer.
+     * @param i   The position of the edit, counting from the oldest.
+     * @return   The slot.
+     */
+    private int slot(int i) {
+        return (first + i) % capacity;
+    }
+}
@@ -0,0 +1,93 @@
+package edu.angelo.studio05nguyen;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Keeps large computed geometry in a memory-mapped file so it can be read back
+ * after the Activity is recreated instead of being computed again.
+ * Each file holds a small header describing what the geometry was computed from,
+ * followed by the geometry itself.
+ */
+final class GeometryCache {
+
+    /**
+     * Marks the start of a geometry cache file.
+     */
+    private static final int MAGIC = 0x47454f31;
+
+    /**
+     * The number of bytes before the header floats: the magic number and two lengths.
+     */
+    private static final int PREFIX_BYTES = 12;
+
+    private GeometryCache() {
+    }
+
+    /**
+     * Writes geometry to a cache file, replacing whatever was there.
+     * @param file       The file to write.
+     * @param header     The inputs the geometry was computed from.
+     * @param geometry   The geometry to store.
+     * @return   True if the file was written.
+     */
+    static boolean write(File file, float[] header, float[] geometry) {
+        long size = PREFIX_BYTES + 4L * (header.length + geometry.length);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(size);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.nativeOrder());
+            buffer.putInt(MAGIC);
+            buffer.putInt(header.length);
+            buffer.putInt(geometry.length);
+            FloatBuffer floats = buffer.asFloatBuffer();
+            floats.put(header);
+            floats.put(geometry);
+            return true;
+        } catch (IOException ex) {
+            // The cache is only an optimization, so the geometry will just be computed again.
+            return false;
+        }
+    }
+
+    /**
+     * Reads geometry back from a cache file if it was computed from the given inputs.
+     * @param file     The file to read.
+     * @param header   The inputs the geometry must have been computed from.
+     * @return   The geometry, or null if the file is missing, damaged or for different inputs.
+     */
+    static float[] read(File file, float[] header) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long size = raf.length();
+            if (size < PREFIX_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.nativeOrder());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != header.length) {
+                return null;
+            }
+            int geometryLength = buffer.getInt();
+            if (geometryLength < 0 || PREFIX_BYTES + 4L * (header.length + geometryLength) != size) {
+                return null;
+            }
+            FloatBuffer floats = buffer.asFloatBuffer();
+            for (float expected : header) {
+                if (Float.compare(floats.get(), expected) != 0) {
+                    return null;
+                }
+            }
+            float[] geometry = new float[geometryLength];
+            floats.get(geometry);
+            return geometry;
+        } catch (IOException ex) {
+            // No usable cache file, so the caller will compute the geometry itself.
+            return null;
+        }
+    }
+}
@@ -8,6 +8,9 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.AdapterView;
@@ -19,7 +22,14 @@ import android.graphics.Path;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import edu.angelo.studio05nguyen.geometry.Constructions;
+import edu.angelo.studio05nguyen.geometry.FractalGeometry;
+
+import java.io.File;
 import java.lang.Math;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * An Activity that allows the user to choose among different drawing modes.
@@ -48,11 +58,74 @@ public class MainActivity extends AppCompatActivity implements AdapterView.OnIte
             "Drag the points around to change the Bezier curve."
     };
 
+    /**
+     * The most mode Views kept alive at once.  Older ones are dropped when another mode is built.
+     */
+    private final int MAX_CACHED_MODES = 4;
+
+    /**
+     * Whether the Record touches menu item is offered.  Recording is only for testing, so only debug builds have it.
+     */
+    private final boolean CAN_RECORD_TOUCHES = BuildConfig.DEBUG;
+
+    /**
+     * The most touch logs kept in the touch-logs folder.  The oldest are deleted to make room for new ones.
+     */
+    private final int MAX_TOUCH_LOGS = 20;
+
+    /**
+     * Whether the touch events of every mode are being recorded into the touch-logs folder so they can be replayed.
+     * It's off until turned on from the menu.
+     */
+    private boolean isRecordingTouches;
+
+    /**
+     * The key whether touches are being recorded is saved under.
+     */
+    private static final String RECORDING_KEY = "recordingTouches";
+
     /**
      * Keeps track of the last View added so it can be found when it needs to be replaced.
      */
     private int indexOfAddedView;
 
+    /**
+     * The layout the mode Views are swapped in and out of, found once in onCreate.
+     */
+    private LinearLayout layout;
+
+    /**
+     * The TextView showing the instructions, found once in onCreate.
+     */
+    private TextView instructionsTextView;
+
+    /**
+     * The mode Views built so far, in least-recently-used order, so switching back to a mode
+     * keeps its state and whatever it has already drawn instead of starting over.
+     */
+    private final Map<Integer, View> modeViews = new LinkedHashMap<Integer, View>(MAX_CACHED_MODES + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, View> eldest) {
+            if (size() > MAX_CACHED_MODES) {
+                // The View is being dropped, so finish its log.
+                stopRecording(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Snapshots saved before the Activity was recreated that haven't been restored yet.
+     * Each mode's snapshot is restored the first time that mode is shown again.
+     */
+    private Bundle pendingSnapshots;
+
+    /**
+     * The touch recorder of each mode View that's being recorded, so it can be closed when the View is dropped.
+     */
+    private final Map<Integer, TouchRecorder> touchRecorders = new HashMap<>();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -65,8 +138,16 @@ public class MainActivity extends AppCompatActivity implements AdapterView.OnIte
         spinner.setAdapter(adapter);
         spinner.setOnItemSelectedListener(this);
 
+        // Keep the saved snapshots, if any, until their modes are built again.
+        pendingSnapshots = savedInstanceState;
+        isRecordingTouches = CAN_RECORD_TOUCHES && savedInstanceState != null
+                && savedInstanceState.getBoolean(RECORDING_KEY);
+
+        // Find the Views that get updated on every mode change.
+        layout = findViewById(R.id.artsyLayout);
+        instructionsTextView = findViewById(R.id.instructionsTextView);
+
         // Add a generic new View and then replace it with a SketchyView.
-        LinearLayout layout = findViewById(R.id.artsyLayout);
         View newView = new View(this);
         layout.addView(newView);
         indexOfAddedView = layout.indexOfChild(newView);
@@ -74,12 +155,12 @@ public class MainActivity extends AppCompatActivity implements AdapterView.OnIte
     }
 
     /**
-     * Changes the instructions and replaces the View for the given mode.
+     * Changes the instructions and swaps in the View for the given mode,
+     * reusing the cached one if the mode has been shown recently.
      * @param mode   The number of the mode to change to.
      */
     private void changeMode(int mode) {
         // Change the instructions for the new mode.
-        TextView instructionsTextView = findViewById(R.id.instructionsTextView);
         try {
             instructionsTextView.setText(instructionsStrings[mode]);
         } catch (ArrayIndexOutOfBoundsException ex) {
@@ -87,9 +168,28 @@ public class MainActivity extends AppCompatActivity implements AdapterView.OnIte
             instructionsTextView.setText("Please choose a mode above.");
         }
 
-        // Remove the old added View and add a new one according to the new mode.
-        LinearLayout layout = findViewById(R.id.artsyLayout);
+        // Remove the old added View and add the one for the new mode.
         layout.removeViewAt(indexOfAddedView);
+        View newView = modeViews.get(mode);
+        if (newView == null) {
+            newView = createModeView(mode);
+            if (mode >= 0 && mode < instructionsStrings.length) {
+                modeViews.put(mode, newView);
+            }
+        }
+        layout.addView(newView);
+        indexOfAddedView = layout.indexOfChild(newView);
+
+        // Undo and Redo depend on the mode showing.
+        invalidateOptionsMenu();
+    }
+
+    /**
+     * Builds a View for the given mode, restoring its saved snapshot if there is one.
+     * @param mode   The number of the mode to build a View for.
+     * @return   The new View.
+     */
+    private View createModeView(int mode) {
         View newView;
         switch (mode) {
             case MODE_SKETCHY:
@@ -111,11 +211,170 @@ public class MainActivity extends AppCompatActivity implements AdapterView.OnIte
                 newView = new BezierMode(this);
                 break;
             default: // It must not be one of the valid modes.
-                newView = new View(this); // Generic and useless, but removable.
-                break;
+                return new View(this); // Generic and useless, but removable.
         }
-        layout.addView(newView);
-        indexOfAddedView = layout.indexOfChild(newView);
+
+        // Pick up where the mode left off before the Activity was recreated.
+        if (pendingSnapshots != null && newView instanceof SnapshotMode) {
+            float[] snapshot = pendingSnapshots.getFloatArray(snapshotKey(mode));
+            if (snapshot != null) {
+                ((SnapshotMode) newView).restoreSnapshot(snapshot);
+                pendingSnapshots.remove(snapshotKey(mode));
+            }
+        }
+
+        // Keep Undo and Redo up to date as the mode's edits are made and undone.
+        if (newView instanceof UndoableMode) {
+            ((UndoableMode) newView).setOnHistoryChangedListener(new Runnable() {
+                @Override
+                public void run() {
+                    invalidateOptionsMenu();
+                }
+            });
+        }
+
+        if (isRecordingTouches) {
+            startRecording(mode, newView);
+        }
+        return newView;
+    }
+
+    /**
+     * Starts recording everything that reaches a mode's onTouch into a new log in the touch-logs folder,
+     * deleting the oldest logs if there are too many.
+     * @param mode   The number of the mode.
+     * @param view   The mode's View, which handles its own touches.
+     */
+    private void startRecording(int mode, View view) {
+        if (touchRecorders.containsKey(mode)) {
+            return;
+        }
+        File logFolder = new File(getFilesDir(), "touch-logs");
+        if (logFolder.isDirectory() || logFolder.mkdirs()) {
+            TouchRecorder.pruneLogs(logFolder, MAX_TOUCH_LOGS - 1);
+            File logFile = new File(logFolder, "mode" + mode + "-" + System.currentTimeMillis() + TouchRecorder.LOG_EXTENSION);
+            TouchRecorder recorder = new TouchRecorder(logFile, (View.OnTouchListener) view);
+            touchRecorders.put(mode, recorder);
+            view.setOnTouchListener(recorder);
+        }
+    }
+
+    /**
+     * Stops recording a mode, closing its log and giving its touches straight back to it.
+     * @param mode   The number of the mode.
+     * @param view   The mode's View.
+     */
+    private void stopRecording(int mode, View view) {
+        TouchRecorder recorder = touchRecorders.remove(mode);
+        if (recorder != null) {
+            recorder.close();
+            view.setOnTouchListener((View.OnTouchListener) view);
+        }
+    }
+
+    /**
+     * Turns recording on or off for every mode View that's alive.  Modes built later follow along.
+     * @param isOn   Whether to record.
+     */
+    private void setRecordingTouches(boolean isOn) {
+        isRecordingTouches = isOn;
+        for (Map.Entry<Integer, View> entry : modeViews.entrySet()) {
+            if (isOn) {
+                startRecording(entry.getKey(), entry.getValue());
+            } else {
+                stopRecording(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Gives the key a mode's snapshot is saved under.
+     * @param mode   The number of the mode.
+     * @return   The key.
+     */
+    private static String snapshotKey(int mode) {
+        return "snapshot" + mode;
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(RECORDING_KEY, isRecordingTouches);
+
+        // Save every mode that is still alive.
+        for (Map.Entry<Integer, View> entry : modeViews.entrySet()) {
+            if (entry.getValue() instanceof SnapshotMode) {
+                outState.putFloatArray(snapshotKey(entry.getKey()), ((SnapshotMode) entry.getValue()).saveSnapshot());
+            }
+        }
+
+        // Carry over snapshots of modes that haven't been shown since the last restore.
+        if (pendingSnapshots != null) {
+            for (int mode = 0; mode < instructionsStrings.length; mode += 1) {
+                float[] snapshot = pendingSnapshots.getFloatArray(snapshotKey(mode));
+                if (snapshot != null && !modeViews.containsKey(mode)) {
+                    outState.putFloatArray(snapshotKey(mode), snapshot);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.main_menu, menu);
+        MenuItem recordItem = menu.findItem(R.id.action_record_touches);
+        recordItem.setVisible(CAN_RECORD_TOUCHES);
+        recordItem.setChecked(isRecordingTouches);
+        return true;
+    }
+
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        // Only offer Undo and Redo in modes that have them, and only when there's something to undo or redo.
+        View currentView = layout.getChildAt(indexOfAddedView);
+        UndoableMode undoable = currentView instanceof UndoableMode ? (UndoableMode) currentView : null;
+        MenuItem undoItem = menu.findItem(R.id.action_undo);
+        undoItem.setVisible(undoable != null);
+        undoItem.setEnabled(undoable != null && undoable.canUndo());
+        MenuItem redoItem = menu.findItem(R.id.action_redo);
+        redoItem.setVisible(undoable != null);
+        redoItem.setEnabled(undoable != null && undoable.canRedo());
+        return super.onPrepareOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        // Undo and redo apply to whichever mode is showing, if it supports them.
+        View currentView = layout.getChildAt(indexOfAddedView);
+        switch (item.getItemId()) {
+            case R.id.action_undo:
+                if (currentView instanceof UndoableMode && !((UndoableMode) currentView).undo()) {
+                    // There was nothing to undo after all, so the menu is out of date.
+                    invalidateOptionsMenu();
+                }
+                return true;
+            case R.id.action_redo:
+                if (currentView instanceof UndoableMode && !((UndoableMode) currentView).redo()) {
+                    // There was nothing to redo after all, so the menu is out of date.
+                    invalidateOptionsMenu();
+                }
+                return true;
+            case R.id.action_record_touches:
+                item.setChecked(!item.isChecked());
+                setRecordingTouches(item.isChecked());
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        for (TouchRecorder recorder : touchRecorders.values()) {
+            recorder.close();
+        }
+        touchRecorders.clear();
     }
 
     @Override
@@ -134,7 +393,7 @@ public class MainActivity extends AppCompatActivity implements AdapterView.OnIte
  * A View that illustrates some simple drawing using a Canvas.
  * @author Rob LeGrand
  */
-class SketchyView extends View implements View.OnTouchListener {
+class SketchyView extends View implements View.OnTouchListener, SnapshotMode {
 
     /**
      * Becomes true once the SketchyView object has been touched,
@@ -162,16 +421,51 @@ class SketchyView extends View implements View.OnTouchListener {
      */
     private float pointBY;
 
-    //Changes
     /**
-     * The x coordinate of point C.
+     * Keeps point C, the midpoint of A and B, up to date with A and B.
+     */
+    private DependencyGraph graph;
+
+    // The nodes of graph for points A, B and C.
+    private int nodeA;
+    private int nodeB;
+    private int nodeC;
+
+    /**
+     * Is true while a finger is down, dragging point B around.
+     */
+    private boolean isDragging;
+
+    /**
+     * How far ahead, in milliseconds, point B is drawn while it's dragged so it keeps up with the finger.
+     * 0 turns prediction off.  It comes from R.integer.prediction_millis, like the other modes'.
+     */
+    private float predictionMillis;
+
+    /**
+     * Follows the finger dragging point B.
      */
-    private float pointCX;
+    private TouchPredictor predictor;
 
     /**
-     * The y coordinate of point C.
+     * Gets the predicted location of point B.
      */
-    private float pointCY;
+    private float[] predicted;
+
+    /**
+     * How far, in pixels, the recorded path may stray from where the finger really went.
+     */
+    private float strokeTolerance = 1.5f;
+
+    /**
+     * The most points the recorded path may keep, however long the finger keeps moving.
+     */
+    private int strokeCapacity = 512;
+
+    /**
+     * The path the finger took from A to B, simplified as it's drawn.
+     */
+    private StrokeSimplifier stroke;
 
     /**
      * The Paint object needed to draw on the Canvas.
@@ -192,6 +486,24 @@ class SketchyView extends View implements View.OnTouchListener {
         // We'll set the beginning point locations only before the SketchyView is touched.
         hasBeenTouched = false;
 
+        predictionMillis = getResources().getInteger(R.integer.prediction_millis);
+        predictor = new TouchPredictor();
+        predicted = new float[2];
+
+        stroke = new StrokeSimplifier(strokeTolerance, strokeCapacity);
+
+        // Point C is always halfway between A and B.
+        graph = new DependencyGraph();
+        nodeA = graph.addInput(2);
+        nodeB = graph.addInput(2);
+        nodeC = graph.addDerived(2, new DependencyGraph.Rule() {
+            @Override
+            public void compute(DependencyGraph graph, int node) {
+                graph.store(node, 0, (graph.get(nodeA, 0) + graph.get(nodeB, 0)) / 2.0f);
+                graph.store(node, 1, (graph.get(nodeA, 1) + graph.get(nodeB, 1)) / 2.0f);
+            }
+        }, nodeA, nodeB);
+
         // Create a new paintbrush to use to draw to the Canvas.
     paint = new Paint();
     // Make the text size bigger.
@@ -211,34 +523,81 @@ class SketchyView extends View implements View.OnTouchListener {
             pointBX = 2.0f * getWidth() / 3.0f;
             pointAY = 2.0f * getHeight() / 3.0f;
             pointBY = getHeight() / 3.0f;
+        }
+
+        // While B is dragged, draw it where the finger is about to be rather than where it last was.
+        float drawBX = pointBX;
+        float drawBY = pointBY;
+        if (isDragging && predictionMillis > 0.0f && predictor.canPredict()) {
+            if (predictor.predict(SystemClock.uptimeMillis(), predictionMillis, predicted)) {
+                // Keep drawing so B settles back onto the finger if it stops.
+                postInvalidateOnAnimation();
+            }
+            drawBX = predicted[0];
+            drawBY = predicted[1];
+        }
 
-            //Get C position by the middle position of A and B
-            pointCX = (pointAX + pointBX) / 2.0f;
-            pointCY = (pointAY + pointBY) / 2.0f;
+        // Point C is halfway along the segment as drawn, and only gets recomputed if A or B has moved.
+        graph.setPoint(nodeA, pointAX, pointAY);
+        graph.setPoint(nodeB, drawBX, drawBY);
+        float pointCX = graph.get(nodeC, 0);
+        float pointCY = graph.get(nodeC, 1);
+
+        // Draw the path the finger took, as segments 0-1, 2-3, ... and then 1-2, 3-4, ...
+        int strokePoints = stroke.pointCount();
+        if (strokePoints > 1) {
+            paint.setColor(Color.rgb(120, 160, 200));
+            canvas.drawLines(stroke.points(), 0, 4 * (strokePoints / 2), paint);
+            canvas.drawLines(stroke.points(), 2, 4 * ((strokePoints - 1) / 2), paint);
         }
 
         // Draw lines among the points and corners of the Canvas.
         paint.setColor(Color.BLACK);
         canvas.drawLine(0.0f, getHeight(), pointAX, pointAY, paint);
-        canvas.drawLine(pointAX, pointAY, pointBX, pointBY, paint);
-        canvas.drawLine(pointBX, pointBY, getWidth(), 0.0f, paint);
+        canvas.drawLine(pointAX, pointAY, drawBX, drawBY, paint);
+        canvas.drawLine(drawBX, drawBY, getWidth(), 0.0f, paint);
 
         // Draw the points and label them.
         paint.setColor(Color.rgb(0, 85, 170));
         canvas.drawCircle(pointAX, pointAY, 27.0f, paint);
 
         paint.setColor(Color.rgb(0, 170, 85));
-        canvas.drawRect(pointBX - 24.0f, pointBY - 24.0f, pointBX + 24.0f, pointBY + 24.0f, paint);
+        canvas.drawRect(drawBX - 24.0f, drawBY - 24.0f, drawBX + 24.0f, drawBY + 24.0f, paint);
 
         paint.setColor(Color.rgb(170, 0 , 85));
         canvas.drawOval(pointCX - 12.0f, pointCY - 24.0f, pointCX + 12.0f, pointCY + 24.0f, paint);
 
         paint.setColor(Color.WHITE);
         canvas.drawText("A", pointAX - 13.0f, pointAY + 14.0f, paint);
-        canvas.drawText("B", pointBX - 13.0f, pointBY + 14.0f, paint);
+        canvas.drawText("B", drawBX - 13.0f, drawBY + 14.0f, paint);
         canvas.drawText("C", pointCX - 13.0f, pointCY + 14.0f, paint);
     }
 
+    @Override
+    public float[] saveSnapshot() {
+        int strokePoints = stroke.pointCount();
+        float[] snapshot = new float[6 + 2 * strokePoints];
+        snapshot[0] = hasBeenTouched ? 1.0f : 0.0f;
+        snapshot[1] = pointAX;
+        snapshot[2] = pointAY;
+        snapshot[3] = pointBX;
+        snapshot[4] = pointBY;
+        snapshot[5] = strokePoints;
+        System.arraycopy(stroke.points(), 0, snapshot, 6, 2 * strokePoints);
+        return snapshot;
+    }
+
+    @Override
+    public void restoreSnapshot(float[] snapshot) {
+        hasBeenTouched = snapshot[0] != 0.0f;
+        pointAX = snapshot[1];
+        pointAY = snapshot[2];
+        pointBX = snapshot[3];
+        pointBY = snapshot[4];
+        stroke.setPoints(snapshot, 6, (int) snapshot[5]);
+        invalidate();
+    }
+
     @Override
     public boolean onTouch(View view, MotionEvent event) {
         // Remember that we won't need to reset the beginning point locations now.
@@ -249,20 +608,32 @@ class SketchyView extends View implements View.OnTouchListener {
                 // Set new point A and force the Canvas to redraw.
                 pointAX = event.getX();
                 pointAY = event.getY();
-                pointCX = (pointAX + pointBX) / 2.0f;
-                pointCY = (pointAY + pointBY) / 2.0f;
+                isDragging = true;
+                predictor.reset(event.getEventTime(), event.getX(), event.getY());
+                // Start a new path at A.
+                stroke.clear();
+                stroke.add(pointAX, pointAY);
                 invalidate();
                 break;
             case MotionEvent.ACTION_MOVE:
-                // Do nothing.
+                // Drag point B along with the finger, recording the path and teaching the predictor every sample on the way.
+                for (int h = 0; h < event.getHistorySize(); ++h) {
+                    predictor.addSample(event.getHistoricalEventTime(h), event.getHistoricalX(h), event.getHistoricalY(h));
+                    stroke.add(event.getHistoricalX(h), event.getHistoricalY(h));
+                }
+                predictor.addSample(event.getEventTime(), event.getX(), event.getY());
+                stroke.add(event.getX(), event.getY());
+                pointBX = event.getX();
+                pointBY = event.getY();
+                invalidate();
                 break;
             case MotionEvent.ACTION_CANCEL:
             case MotionEvent.ACTION_UP:
-                // Set new point B and force the Canvas to redraw.
+                // Set new point B, end the path there and force the Canvas to redraw.
+                isDragging = false;
                 pointBX = event.getX();
                 pointBY = event.getY();
-                pointCX = (pointAX + pointBX) / 2.0f;
-                pointCY = (pointAY + pointBY) / 2.0f;
+                stroke.finish(pointBX, pointBY);
                 invalidate();
                 break;
         }
@@ -274,7 +645,7 @@ class SketchyView extends View implements View.OnTouchListener {
  * A View that draws substitution fractals, one per swipe.
  * @author Rob LeGrand
  */
-class FractalView extends View implements View.OnTouchListener {
+class FractalView extends View implements View.OnTouchListener, SnapshotMode {
 
     /**
      * Is true when the user is currently swiping for a new fractal.
@@ -306,6 +677,36 @@ class FractalView extends View implements View.OnTouchListener {
      */
     private int depth;
 
+    // The endpoints of the last fractal the user finished swiping.  They stay put while a new swipe
+    // is in progress, so the fractal that is saved and cached is always one the user actually drew.
+    private float fractalFromX;
+    private float fractalFromY;
+    private float fractalToX;
+    private float fractalToY;
+
+    /**
+     * The most lines the fractal may have and still be kept in fractalLines.
+     * Deeper fractals are drawn straight from the recursion instead.
+     */
+    private static final int MAX_CACHED_LINES = 1 << 18;
+
+    /**
+     * The endpoints of every line of the current fractal, four floats per line, ready for drawLines.
+     * It is null when the fractal needs to be computed again.
+     */
+    private float[] fractalLines;
+
+    /**
+     * Becomes true once fractalLines has been written to the cache file, so it isn't written again.
+     */
+    private boolean fractalLinesCached;
+
+    /**
+     * The cache file fractalLines should be read from the next time it's needed,
+     * or null if it should be computed instead.
+     */
+    private File pendingLinesFile;
+
     /**
      * The Paint object needed to draw on the Canvas.
      */
@@ -348,7 +749,7 @@ class FractalView extends View implements View.OnTouchListener {
     }
 
     /**
-     * Recursively draw a substitution fractal on the given Canvas.
+     * Draw a substitution fractal on the given Canvas one line at a time.
      * @param canvas   The Canvas to draw on.
      * @param fromX    The x coordinate of the point to draw from.
      * @param fromY    The y coordinate of the point to draw from.
@@ -356,35 +757,13 @@ class FractalView extends View implements View.OnTouchListener {
      * @param toY      The y coordinate of the point to draw to.
      * @param depth    The depth of the recursion tree to use.
      */
-    private void drawFractal(Canvas canvas, float fromX, float fromY, float toX, float toY, int depth) {
-        // The lines array determines how each line is turned into several lines.
-        // These values will simulate the regular paperfolding sequence:
-        final float[][][] lines = {
-                {{0.00f, 0.00f}, {0.25f, 0.60f}},
-                {{0.25f, 0.25f}, {0.75f, 0.75f}},
-                {{0.75f, 0.40f}, {1.00f, 1.00f}}
-        };
-        if (depth <= 0) {
-            // We've recursed enough, so just draw a line.
-            canvas.drawLine(fromX, fromY, toX, toY, paint);
-        } else {
-            // We need to recurse some more.  Turn this line into several.
-            float cosDistance = (toX - fromX + toY - fromY) / 2.0f;
-            float sinDistance = (fromX - toX + toY - fromY) / 2.0f;
-
-
-            int whichLine;
-            for (whichLine = 0; whichLine < lines.length; whichLine += 1) {
-                drawFractal(
-                        canvas,
-                        fromX + lines[whichLine][0][0] * cosDistance - lines[whichLine][0][1] * sinDistance,
-                        fromY + lines[whichLine][0][0] * sinDistance + lines[whichLine][0][1] * cosDistance,
-                        fromX + lines[whichLine][1][0] * cosDistance - lines[whichLine][1][1] * sinDistance,
-                        fromY + lines[whichLine][1][0] * sinDistance + lines[whichLine][1][1] * cosDistance,
-                        depth - 1
-                );
+    private void drawFractal(final Canvas canvas, float fromX, float fromY, float toX, float toY, int depth) {
+        FractalGeometry.visitLines(new FractalGeometry.LineSink() {
+            @Override
+            public void line(float fromX, float fromY, float toX, float toY) {
+                canvas.drawLine(fromX, fromY, toX, toY, paint);
             }
-        }
+        }, fromX, fromY, toX, toY, depth);
     }
 
     @Override
@@ -396,7 +775,26 @@ class FractalView extends View implements View.OnTouchListener {
         } else if (depth > 0) {
             // Draw a fractal at the selected location and report the current depth.
             paint.setColor(Color.BLACK);
-            drawFractal(canvas, fromX, fromY, toX, toY, depth);
+            if (fractalLines == null && pendingLinesFile != null) {
+                // We were restored, so try the lines that were already computed before.
+                fractalLines = GeometryCache.read(pendingLinesFile, fractalHeader());
+                fractalLinesCached = fractalLines != null;
+                pendingLinesFile = null;
+            }
+            if (fractalLines == null) {
+                int lineCount = FractalGeometry.countLines(depth, MAX_CACHED_LINES);
+                if (lineCount > 0) {
+                    fractalLines = new float[4 * lineCount];
+                    FractalGeometry.computeLines(fractalLines, 0, fractalFromX, fractalFromY, fractalToX, fractalToY, depth);
+                    fractalLinesCached = false;
+                }
+            }
+            if (fractalLines != null) {
+                canvas.drawLines(fractalLines, paint);
+            } else {
+                // It's too big to keep around, so draw it line by line.
+                drawFractal(canvas, fractalFromX, fractalFromY, fractalToX, fractalToY, depth);
+            }
             try {
                 instructionsTextView.setText("Fractal depth: " + depth);
             } catch (NullPointerException ex) {
@@ -427,16 +825,71 @@ class FractalView extends View implements View.OnTouchListener {
                 isMoving = false;
                 toX = event.getX();
                 toY = event.getY();
+                // The swipe is finished, so it replaces the old fractal and its lines.
+                fractalFromX = fromX;
+                fractalFromY = fromY;
+                fractalToX = toX;
+                fractalToY = toY;
+                fractalLines = null;
+                pendingLinesFile = null;
                 depth += 1; // Increase the recursion depth after each swipe.
                 invalidate(); // Force the Canvas to redraw.
                 break;
         }
         return true; // Indicate that the touch event has been handled.
     }
+
+    /**
+     * Gives the inputs the fractal lines are computed from, to tell whether cached lines still match.
+     * @return   The endpoints and depth of the last finished fractal.
+     */
+    private float[] fractalHeader() {
+        return new float[] {fractalFromX, fractalFromY, fractalToX, fractalToY, depth};
+    }
+
+    /**
+     * Gives the file the fractal lines are cached in.
+     * @return   The cache file.
+     */
+    private File linesFile() {
+        return new File(getContext().getCacheDir(), "fractal-lines.bin");
+    }
+
+    @Override
+    public float[] saveSnapshot() {
+        // The lines themselves are too big for the snapshot, so they go in a cache file.
+        if (fractalLines != null && !fractalLinesCached) {
+            fractalLinesCached = GeometryCache.write(linesFile(), fractalHeader(), fractalLines);
+        }
+        return fractalHeader();
+    }
+
+    @Override
+    public void restoreSnapshot(float[] snapshot) {
+        // Any swipe that was in progress is lost with the old Activity, so go back to the last finished fractal.
+        fractalFromX = snapshot[0];
+        fractalFromY = snapshot[1];
+        fractalToX = snapshot[2];
+        fractalToY = snapshot[3];
+        fromX = fractalFromX;
+        fromY = fractalFromY;
+        toX = fractalToX;
+        toY = fractalToY;
+        depth = (int) snapshot[4];
+        isMoving = false;
+        fractalLines = null;
+        // Don't read the lines until they're actually drawn.
+        pendingLinesFile = linesFile();
+        invalidate();
+    }
 }
 
 // Create new classes below.
-class PointsMode extends View implements View.OnTouchListener {
+class PointsMode extends View implements View.OnTouchListener, SnapshotMode, UndoableMode {
+
+    // The kinds of edits kept in history: plotting one point, and clearing them all.
+    private static final int EDIT_ADD = 0;
+    private static final int EDIT_CLEAR = 1;
 
     private int pointMax = 10;
 
@@ -444,7 +897,11 @@ class PointsMode extends View implements View.OnTouchListener {
 
     private int count;
 
-    boolean firstDraw;
+    // The points plotted and cleared, for undo and redo.
+    private EditHistory history;
+
+    // Told whenever history changes, so the Undo and Redo menu items can keep up.
+    private Runnable onHistoryChanged;
 
     private Paint paint;
 
@@ -455,13 +912,12 @@ class PointsMode extends View implements View.OnTouchListener {
         // Make it so that the onTouch method gets called when the SketchyView is touched.
         setOnTouchListener(this);
 
-        // We'll set the beginning point locations only before the SketchyView is touched.
-        firstDraw = false;
-
         count = 0;
 
         points = new float [pointMax][2];
 
+        history = new EditHistory(4096);
+
         // Create a new paintbrush to use to draw to the Canvas.
         paint = new Paint();
         // Make the text size bigger.
@@ -474,24 +930,16 @@ class PointsMode extends View implements View.OnTouchListener {
     public void onDraw(Canvas canvas) {
         canvas.drawColor(Color.WHITE);
 
-        if (!firstDraw && count > 0) {
-            firstDraw = true;
-
-            paint.setColor(Color.BLACK);
-            canvas.drawText(Integer.toString(count), points[0][0] - 13.0f, points[0][1] + 14.0f, paint);
+        // Draw lines among the points of the Canvas.
+        paint.setColor(Color.rgb(225, 225, 225));
+        for (int i = 1; i < count; ++i) {
+            canvas.drawLine(points[i-1][0], points[i-1][1], points[i][0], points[i][1], paint);
         }
 
-        else if (count > 1){
-            // Draw lines among the points of the Canvas.
-            for (int i = 1; i < count; ++i) {
-                paint.setColor(Color.rgb(225, 225, 225));
-                canvas.drawLine(points[i-1][0], points[i-1][1], points[i][0], points[i][1], paint);
-            }
-
-            for (int i = 0; i < count; ++i) {
-                paint.setColor(Color.BLACK);
-                canvas.drawText(Integer.toString(i+1), points[i][0] - 13.0f, points[i][1] + 14.0f, paint);
-            }
+        // Label every point, even a lone one, every time the Canvas is drawn.
+        paint.setColor(Color.BLACK);
+        for (int i = 0; i < count; ++i) {
+            canvas.drawText(Integer.toString(i+1), points[i][0] - 13.0f, points[i][1] + 14.0f, paint);
         }
     }
 
@@ -505,11 +953,16 @@ class PointsMode extends View implements View.OnTouchListener {
                     if (count < 10) {
                         points[count - 1][0] = event.getX();
                         points[count - 1][1] = event.getY();
+                        history.record(EDIT_ADD, count - 1, 0.0f, 0.0f, event.getX(), event.getY());
+                        historyChanged();
                         invalidate();
                     } else {
+                        // Remember everything that's about to be cleared so it can be brought back.
+                        --count;
+                        history.recordCheckpoint(EDIT_CLEAR, saveSnapshot());
                         count = 0;
                         points = new float[pointMax][2];
-                        firstDraw = false;
+                        historyChanged();
                         invalidate();
                     }
                     break;
@@ -522,9 +975,87 @@ class PointsMode extends View implements View.OnTouchListener {
 
         return true; // Indicate that the touch event has been handled.
     }
+
+    @Override
+    public boolean undo() {
+        int edit = history.undo();
+        if (edit < 0) {
+            return false;
+        }
+        if (history.kind(edit) == EDIT_ADD) {
+            // Take the point back off.
+            count = history.index(edit);
+        } else {
+            restoreSnapshot(history.checkpoint(edit));
+        }
+        historyChanged();
+        invalidate();
+        return true;
+    }
+
+    @Override
+    public boolean redo() {
+        int edit = history.redo();
+        if (edit < 0) {
+            return false;
+        }
+        if (history.kind(edit) == EDIT_ADD) {
+            points[history.index(edit)][0] = history.newX(edit);
+            points[history.index(edit)][1] = history.newY(edit);
+            count = history.index(edit) + 1;
+        } else {
+            count = 0;
+        }
+        historyChanged();
+        invalidate();
+        return true;
+    }
+
+    @Override
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    @Override
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    @Override
+    public void setOnHistoryChangedListener(Runnable listener) {
+        onHistoryChanged = listener;
+    }
+
+    private void historyChanged() {
+        if (onHistoryChanged != null) {
+            onHistoryChanged.run();
+        }
+    }
+
+    @Override
+    public float[] saveSnapshot() {
+        // The count, then the x and y of every point.  What's drawn depends only on these.
+        float[] snapshot = new float[1 + 2 * pointMax];
+        snapshot[0] = count;
+        for (int i = 0; i < pointMax; ++i) {
+            snapshot[1 + 2 * i] = points[i][0];
+            snapshot[2 + 2 * i] = points[i][1];
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void restoreSnapshot(float[] snapshot) {
+        count = (int) snapshot[0];
+        for (int i = 0; i < pointMax; ++i) {
+            points[i][0] = snapshot[1 + 2 * i];
+            points[i][1] = snapshot[2 + 2 * i];
+        }
+        invalidate();
+    }
 }
 
-class AveragingMode extends View implements View.OnTouchListener {
+class AveragingMode extends View implements View.OnTouchListener, SnapshotMode {
 
     private float posX;
     private float posY;
@@ -591,9 +1122,22 @@ class AveragingMode extends View implements View.OnTouchListener {
 
         return true; // Indicate that the touch event has been handled.
     }
+
+    @Override
+    public float[] saveSnapshot() {
+        return new float[] {count, posX, posY};
+    }
+
+    @Override
+    public void restoreSnapshot(float[] snapshot) {
+        count = (int) snapshot[0];
+        posX = snapshot[1];
+        posY = snapshot[2];
+        invalidate();
+    }
 }
 
-class GeometryMode extends View implements View.OnTouchListener {
+class GeometryMode extends View implements View.OnTouchListener, SnapshotMode, MultiTouchDispatcher.Target {
 
     private float posAX;
     private float posAY;
@@ -605,6 +1149,32 @@ class GeometryMode extends View implements View.OnTouchListener {
 
     boolean hasBeenTouched;
 
+    // How close a finger has to be to grab the other point instead of the green one.
+    private float rangeReach = 50.0f;
+
+    // Sends each finger to the point it grabbed, so A and B can be dragged at the same time.
+    private MultiTouchDispatcher dispatcher;
+
+    // Gets the predicted location of a dragged point.
+    private float[] predicted = new float[2];
+
+    // Whether A and B are held by a finger, and whether each was the green point when it was grabbed.
+    // The green point can change while fingers are down, so only the colour at grab time decides the swap.
+    private boolean[] isHeld = new boolean[2];
+    private boolean[] grabbedAsGreen = new boolean[2];
+
+    // Keeps the shapes built on A and B up to date, recomputing them only when A or B moves.
+    private DependencyGraph graph;
+
+    // The nodes of graph for A, B, the circle with AB as a diameter and the rectangle with AB as a diagonal.
+    private int nodeA;
+    private int nodeB;
+    private int nodeCircle;
+    private int nodeRect;
+
+    // Work space for the graph's rules.
+    private float[] shape = new float[4];
+
         private Paint paint;
 
     public GeometryMode(Context context) {
@@ -614,8 +1184,36 @@ class GeometryMode extends View implements View.OnTouchListener {
             // Make it so that the onTouch method gets called when the SketchyView is touched.
             setOnTouchListener(this);
 
+            dispatcher = new MultiTouchDispatcher(this);
+            // Draw dragged points ahead so they keep up with the finger.
+            dispatcher.setPredictionMillis(getResources().getInteger(R.integer.prediction_millis));
+
             hasBeenTouched = false;
 
+        graph = new DependencyGraph();
+        nodeA = graph.addInput(2);
+        nodeB = graph.addInput(2);
+        // The circle's center x, center y and radius.
+        nodeCircle = graph.addDerived(3, new DependencyGraph.Rule() {
+            @Override
+            public void compute(DependencyGraph graph, int node) {
+                Constructions.diameterCircle(graph.get(nodeA, 0), graph.get(nodeA, 1), graph.get(nodeB, 0), graph.get(nodeB, 1), shape);
+                for (int i = 0; i < 3; ++i) {
+                    graph.store(node, i, shape[i]);
+                }
+            }
+        }, nodeA, nodeB);
+        // The rectangle's left, top, right and bottom.
+        nodeRect = graph.addDerived(4, new DependencyGraph.Rule() {
+            @Override
+            public void compute(DependencyGraph graph, int node) {
+                Constructions.diagonalRect(graph.get(nodeA, 0), graph.get(nodeA, 1), graph.get(nodeB, 0), graph.get(nodeB, 1), shape);
+                for (int i = 0; i < 4; ++i) {
+                    graph.store(node, i, shape[i]);
+                }
+            }
+        }, nodeA, nodeB);
+
             isA = true;
 
         // Create a new paintbrush to use to draw to the Canvas.
@@ -638,40 +1236,66 @@ class GeometryMode extends View implements View.OnTouchListener {
             posBY = getHeight() / 3.0f;
         }
 
+        // Draw dragged points where the finger is about to be rather than where it last was.
+        float drawAX = posAX;
+        float drawAY = posAY;
+        float drawBX = posBX;
+        float drawBY = posBY;
+        long now = SystemClock.uptimeMillis();
+        boolean isPredicting = false;
+        if (dispatcher.predictHandle(0, now, predicted)) {
+            drawAX = predicted[0];
+            drawAY = predicted[1];
+            isPredicting = true;
+        }
+        if (dispatcher.predictHandle(1, now, predicted)) {
+            drawBX = predicted[0];
+            drawBY = predicted[1];
+            isPredicting = true;
+        }
+        if (isPredicting) {
+            // Keep drawing so the points settle back onto the fingers if they stop.
+            postInvalidateOnAnimation();
+        }
+
+        // The shapes are only recomputed if A or B has moved since the last frame.
+        graph.setPoint(nodeA, drawAX, drawAY);
+        graph.setPoint(nodeB, drawBX, drawBY);
+
         paint.setColor(Color.BLACK);
-        canvas.drawCircle((posAX+posBX)/2, (posAY+posBY)/2, (float)Math.sqrt((posAX-posBX)*(posAX-posBX) + (posAY-posBY)*(posAY-posBY))/2,paint);
+        canvas.drawCircle(graph.get(nodeCircle, 0), graph.get(nodeCircle, 1), graph.get(nodeCircle, 2), paint);
 
         paint.setColor(Color.BLUE);
-        canvas.drawRect(posAX, posBY, posBX, posAY, paint);
+        canvas.drawRect(graph.get(nodeRect, 0), graph.get(nodeRect, 1), graph.get(nodeRect, 2), graph.get(nodeRect, 3), paint);
 
         paint.setColor(Color.WHITE);
-        canvas.drawLine(posAX, posAY, posBX, posBY, paint);
+        canvas.drawLine(drawAX, drawAY, drawBX, drawBY, paint);
 
 
 
         //Draw A and B Circle + Text A and B
         if (isA) {
             paint.setColor(Color.rgb(0,170,0));
-            canvas.drawCircle(posAX, posAY, 27.0f, paint);
+            canvas.drawCircle(drawAX, drawAY, 27.0f, paint);
 
             paint.setColor(Color.RED);
-            canvas.drawCircle(posBX, posBY, 27.0f, paint);
+            canvas.drawCircle(drawBX, drawBY, 27.0f, paint);
 
             paint.setColor(Color.WHITE);
-            canvas.drawText("A", posAX - 13.0f, posAY + 14.0f, paint);
-            canvas.drawText("B", posBX - 13.0f, posBY + 14.0f, paint);
+            canvas.drawText("A", drawAX - 13.0f, drawAY + 14.0f, paint);
+            canvas.drawText("B", drawBX - 13.0f, drawBY + 14.0f, paint);
         }
 
         else {
             paint.setColor(Color.rgb(0,170,0));
-            canvas.drawCircle(posBX, posBY, 27.0f, paint);
+            canvas.drawCircle(drawBX, drawBY, 27.0f, paint);
 
             paint.setColor(Color.RED);
-            canvas.drawCircle(posAX, posAY, 27.0f, paint);
+            canvas.drawCircle(drawAX, drawAY, 27.0f, paint);
 
             paint.setColor(Color.WHITE);
-            canvas.drawText("A", posAX - 13.0f, posAY + 14.0f, paint);
-            canvas.drawText("B", posBX - 13.0f, posBY + 14.0f, paint);
+            canvas.drawText("A", drawAX - 13.0f, drawAY + 14.0f, paint);
+            canvas.drawText("B", drawBX - 13.0f, drawBY + 14.0f, paint);
         }
     }
 
@@ -679,45 +1303,103 @@ class GeometryMode extends View implements View.OnTouchListener {
     public boolean onTouch(View view, MotionEvent event) {
         hasBeenTouched = true;
 
-        // React to the touch event: down, move, cancel or up.
-        switch (event.getAction()) {
-            case MotionEvent.ACTION_DOWN:
-            case MotionEvent.ACTION_MOVE:
-                if (isA) {
-                    posAX = event.getX();
-                    posAY = event.getY();
-                    invalidate();
-                }
-                else {
-                    posBX = event.getX();
-                    posBY = event.getY();
-                    invalidate();
-                }
-                break;
-            case MotionEvent.ACTION_CANCEL:
-            case MotionEvent.ACTION_UP:
-                if (isA) {
-                    isA = false;
-                    invalidate();
-                }
+        // Each finger drags the point it grabbed; a finger away from both grabs the green one.
+        dispatcher.dispatch(event);
 
-                else {
-                    isA = true;
-                    invalidate();
-                }
-                break;
+        return true; // Indicate that the touch event has been handled.
+    }
+
+    @Override
+    public int handleCount() {
+        return 2;
+    }
+
+    @Override
+    public boolean isNear(int handle, float x, float y) {
+        float handleX = handle == 0 ? posAX : posBX;
+        float handleY = handle == 0 ? posAY : posBY;
+        return Math.abs(x - handleX) <= rangeReach && Math.abs(y - handleY) <= rangeReach;
+    }
+
+    @Override
+    public int defaultHandle() {
+        return isA ? 0 : 1;
+    }
+
+    @Override
+    public void moveHandle(int handle, float x, float y) {
+        if (!isHeld[handle]) {
+            // The first move of a handle is when it's grabbed.
+            isHeld[handle] = true;
+            grabbedAsGreen[handle] = handle == defaultHandle();
+        }
+        if (handle == 0) {
+            posAX = x;
+            posAY = y;
         }
+        else {
+            posBX = x;
+            posBY = y;
+        }
+        invalidate();
+    }
 
-        return true; // Indicate that the touch event has been handled.
+    @Override
+    public void releaseHandle(int handle) {
+        // Letting go of the point that was green when it was grabbed makes the other one green.
+        if (grabbedAsGreen[handle]) {
+            isA = !isA;
+        }
+        isHeld[handle] = false;
+        grabbedAsGreen[handle] = false;
+        invalidate();
+    }
+
+    @Override
+    public float[] saveSnapshot() {
+        return new float[] {hasBeenTouched ? 1.0f : 0.0f, isA ? 1.0f : 0.0f, posAX, posAY, posBX, posBY};
+    }
+
+    @Override
+    public void restoreSnapshot(float[] snapshot) {
+        hasBeenTouched = snapshot[0] != 0.0f;
+        isA = snapshot[1] != 0.0f;
+        posAX = snapshot[2];
+        posAY = snapshot[3];
+        posBX = snapshot[4];
+        posBY = snapshot[5];
+        invalidate();
     }
 }
 
-class BezierMode extends View implements View.OnTouchListener {
+class BezierMode extends View implements View.OnTouchListener, SnapshotMode, MultiTouchDispatcher.Target, UndoableMode {
+
+    // The only kind of edit kept in history: dragging a point from one place to another.
+    private static final int EDIT_MOVE = 0;
 
     private float points[][];
 
     private float rangeReach = 50.0f;
-    private int dragPoint;
+
+    // Sends each finger to the point it grabbed, so several points can be dragged at once.
+    private MultiTouchDispatcher dispatcher;
+
+    // Where each point is drawn this frame: predicted if it's being dragged, otherwise where it is.
+    private float drawnPoints[][];
+
+    // The drags made so far, for undo and redo.
+    private EditHistory history;
+
+    // Told whenever history changes, so the Undo and Redo menu items can keep up.
+    private Runnable onHistoryChanged;
+
+    // Whether each point is being dragged, and where its drag started.
+    private boolean isDragging[];
+    private float dragStart[][];
+
+    // The points the curve's path was last built from, so it's only rebuilt when one of them moves.
+    private float pathPoints[];
+    private boolean pathValid;
 
     boolean hasBeenTouched;
 
@@ -734,7 +1416,17 @@ class BezierMode extends View implements View.OnTouchListener {
         hasBeenTouched = false;
 
         points = new float[4][2];
-        dragPoint = 4;
+        drawnPoints = new float[4][2];
+        history = new EditHistory(4096);
+        isDragging = new boolean[4];
+        dragStart = new float[4][2];
+        pathPoints = new float[8];
+        dispatcher = new MultiTouchDispatcher(this);
+        // Draw dragged points ahead so they keep up with the finger.
+        dispatcher.setPredictionMillis(getResources().getInteger(R.integer.prediction_millis));
+
+        // Reuse one Path for the curve rather than building a new one every frame.
+        path = new Path();
 
         // Create a new paintbrush to use to draw to the Canvas.
         paint = new Paint();
@@ -763,31 +1455,55 @@ class BezierMode extends View implements View.OnTouchListener {
             points[3][1] = 2.0f * getHeight() / 3.0f;
         }
 
+        long now = SystemClock.uptimeMillis();
+        boolean isPredicting = false;
+        for (int i = 0; i < 4; ++i) {
+            if (dispatcher.predictHandle(i, now, drawnPoints[i])) {
+                isPredicting = true;
+            } else {
+                drawnPoints[i][0] = points[i][0];
+                drawnPoints[i][1] = points[i][1];
+            }
+        }
+        if (isPredicting) {
+            // Keep drawing so the points settle back onto the fingers if they stop.
+            postInvalidateOnAnimation();
+        }
+
         paint.setColor(Color.rgb(227,227,227));
 
         //Draw line
         for (int i = 1; i < 4; ++i) {
-            canvas.drawLine(points[i-1][0], points[i-1][1], points[i][0], points[i][1], paint);
+            canvas.drawLine(drawnPoints[i-1][0], drawnPoints[i-1][1], drawnPoints[i][0], drawnPoints[i][1], paint);
         }
 
         super.onDraw(canvas);
         paint.setStyle(Paint.Style.STROKE);
         paint.setColor(Color.BLACK);
 
-        path = new Path();
-        path.reset();
-        path.moveTo(points[0][0],points[0][1]);
-        path.cubicTo(points[1][0],points[1][1],points[2][0],points[2][1],points[3][0],points[3][1]);
+        for (int i = 0; i < 4; ++i) {
+            if (pathPoints[2 * i] != drawnPoints[i][0] || pathPoints[2 * i + 1] != drawnPoints[i][1]) {
+                pathPoints[2 * i] = drawnPoints[i][0];
+                pathPoints[2 * i + 1] = drawnPoints[i][1];
+                pathValid = false;
+            }
+        }
+        if (!pathValid) {
+            path.reset();
+            path.moveTo(drawnPoints[0][0],drawnPoints[0][1]);
+            path.cubicTo(drawnPoints[1][0],drawnPoints[1][1],drawnPoints[2][0],drawnPoints[2][1],drawnPoints[3][0],drawnPoints[3][1]);
+            pathValid = true;
+        }
         canvas.drawPath(path,paint);
 
         paint.setStyle(Paint.Style.FILL);
         //Draw Circle
         paint.setColor(Color.RED);
         for (int i = 0; i < 4; ++i) {
-            if (i != dragPoint) canvas.drawCircle(points[i][0],points[i][1],27.0f, paint);
+            if (!dispatcher.isGrabbed(i)) canvas.drawCircle(drawnPoints[i][0],drawnPoints[i][1],27.0f, paint);
             else {
                 paint.setColor(Color.rgb(0,170,0));
-                canvas.drawCircle(points[i][0],points[i][1],27.0f, paint);
+                canvas.drawCircle(drawnPoints[i][0],drawnPoints[i][1],27.0f, paint);
                 paint.setColor(Color.RED);
             }
         }
@@ -795,7 +1511,7 @@ class BezierMode extends View implements View.OnTouchListener {
         //Draw Text
         paint.setColor(Color.WHITE);
         for (int i = 0; i < 4; ++i) {
-            canvas.drawText(Integer.toString(i), points[i][0] - 13.0f, points[i][1] + 14.0f, paint);
+            canvas.drawText(Integer.toString(i), drawnPoints[i][0] - 13.0f, drawnPoints[i][1] + 14.0f, paint);
         }
     }
 
@@ -803,27 +1519,116 @@ class BezierMode extends View implements View.OnTouchListener {
     public boolean onTouch(View view, MotionEvent event) {
         hasBeenTouched = true;
 
-        switch (event.getAction()) {
-            case MotionEvent.ACTION_DOWN:
-            case MotionEvent.ACTION_MOVE:
-                for (int i = 0; i < 4; ++i) {
-                    if (Math.abs(event.getX() - points[i][0]) <= rangeReach  && Math.abs(event.getY() - points[i][1]) <= rangeReach) {
-                        dragPoint = i;
-                        points[i][0] = event.getX();
-                        points[i][1] = event.getY();
-                        invalidate();
-                        break;
-                    }
-                }
-                break;
-            case MotionEvent.ACTION_CANCEL:
-            case MotionEvent.ACTION_UP:
-                dragPoint = 4;
-                invalidate();
-                break;
-        }
+        dispatcher.dispatch(event);
 
         return true; // Indicate that the touch event has been handled.
     }
+
+    @Override
+    public int handleCount() {
+        return points.length;
+    }
+
+    @Override
+    public boolean isNear(int handle, float x, float y) {
+        return Math.abs(x - points[handle][0]) <= rangeReach && Math.abs(y - points[handle][1]) <= rangeReach;
+    }
+
+    @Override
+    public int defaultHandle() {
+        return MultiTouchDispatcher.NO_HANDLE;
+    }
+
+    @Override
+    public void moveHandle(int handle, float x, float y) {
+        if (!isDragging[handle]) {
+            // Remember where the drag started, for undo.
+            isDragging[handle] = true;
+            dragStart[handle][0] = points[handle][0];
+            dragStart[handle][1] = points[handle][1];
+        }
+        points[handle][0] = x;
+        points[handle][1] = y;
+        invalidate();
+    }
+
+    @Override
+    public void releaseHandle(int handle) {
+        // A whole drag is one edit, however far the point went on the way.
+        if (isDragging[handle]) {
+            isDragging[handle] = false;
+            history.record(EDIT_MOVE, handle, dragStart[handle][0], dragStart[handle][1], points[handle][0], points[handle][1]);
+            historyChanged();
+        }
+        invalidate();
+    }
+
+    @Override
+    public boolean undo() {
+        int edit = history.undo();
+        if (edit < 0) {
+            return false;
+        }
+        points[history.index(edit)][0] = history.oldX(edit);
+        points[history.index(edit)][1] = history.oldY(edit);
+        historyChanged();
+        invalidate();
+        return true;
+    }
+
+    @Override
+    public boolean redo() {
+        int edit = history.redo();
+        if (edit < 0) {
+            return false;
+        }
+        points[history.index(edit)][0] = history.newX(edit);
+        points[history.index(edit)][1] = history.newY(edit);
+        historyChanged();
+        invalidate();
+        return true;
+    }
+
+    @Override
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    @Override
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    @Override
+    public void setOnHistoryChangedListener(Runnable listener) {
+        onHistoryChanged = listener;
+    }
+
+    private void historyChanged() {
+        if (onHistoryChanged != null) {
+            onHistoryChanged.run();
+        }
+    }
+
+    @Override
+    public float[] saveSnapshot() {
+        float[] snapshot = new float[1 + 2 * points.length];
+        snapshot[0] = hasBeenTouched ? 1.0f : 0.0f;
+        for (int i = 0; i < points.length; ++i) {
+            snapshot[1 + 2 * i] = points[i][0];
+            snapshot[2 + 2 * i] = points[i][1];
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void restoreSnapshot(float[] snapshot) {
+        hasBeenTouched = snapshot[0] != 0.0f;
+        for (int i = 0; i < points.length; ++i) {
+            points[i][0] = snapshot[1 + 2 * i];
+            points[i][1] = snapshot[2 + 2 * i];
+        }
+        invalidate();
+    }
 }
 
@@ -0,0 +1,78 @@
+package edu.angelo.studio05nguyen;
+
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Turns replayed touch log events back into MotionEvents and hands them to a mode's onTouch,
+ * so a recorded session can be run against any mode.
+ */
+class MotionEventReplayer implements TouchReplay.Sink {
+
+    /**
+     * The View the events are addressed to.
+     */
+    private final View view;
+
+    /**
+     * The listener that handles the events, usually the mode itself.
+     */
+    private final View.OnTouchListener listener;
+
+    // Reused from event to event.
+    private MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[0];
+    private MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[0];
+
+    /**
+     * Sets up a replayer for one mode.
+     * @param view       The View the events are addressed to.
+     * @param listener   The listener that handles the events.
+     */
+    MotionEventReplayer(View view, View.OnTouchListener listener) {
+        this.view = view;
+        this.listener = listener;
+    }
+
+    @Override
+    public void onEvent(TouchLog.Reader event) {
+        int pointerCount = event.pointerCount;
+        if (properties.length < pointerCount) {
+            properties = new MotionEvent.PointerProperties[pointerCount];
+            coords = new MotionEvent.PointerCoords[pointerCount];
+            for (int p = 0; p < pointerCount; ++p) {
+                properties[p] = new MotionEvent.PointerProperties();
+                coords[p] = new MotionEvent.PointerCoords();
+            }
+        }
+        for (int p = 0; p < pointerCount; ++p) {
+            properties[p].id = event.ids[p];
+            properties[p].toolType = MotionEvent.TOOL_TYPE_FINGER;
+        }
+
+        // Start from the oldest sample and batch the rest on, so the history comes back too.
+        setCoords(event, 0);
+        MotionEvent motionEvent = MotionEvent.obtain(event.downTime, event.times[0], event.action,
+                pointerCount, properties, coords, 0, 0, 1.0f, 1.0f, 0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+        for (int s = 1; s < event.sampleCount; ++s) {
+            setCoords(event, s);
+            motionEvent.addBatch(event.times[s], coords, 0);
+        }
+        listener.onTouch(view, motionEvent);
+        motionEvent.recycle();
+    }
+
+    /**
+     * Copies one sample's coordinates into the reused PointerCoords.
+     * @param event    The event being replayed.
+     * @param sample   The index of the sample.
+     */
+    private void setCoords(TouchLog.Reader event, int sample) {
+        for (int p = 0; p < event.pointerCount; ++p) {
+            coords[p].x = event.xs[sample * event.pointerCount + p];
+            coords[p].y = event.ys[sample * event.pointerCount + p];
+            coords[p].pressure = 1.0f;
+            coords[p].size = 1.0f;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package edu.angelo.studio05nguyen;
+
+import android.view.MotionEvent;
+
+/**
+ * Routes every finger on the screen to the handle it grabbed, so several handles can be dragged at once.
+ * Active pointers are kept by id in preallocated arrays, so dispatching an event never allocates.
+ * Each pointer also feeds a TouchPredictor, so grabbed handles can be drawn where the finger is about to be.
+ */
+class MultiTouchDispatcher {
+
+    /**
+     * Something with handles that can be grabbed and dragged around.
+     */
+    interface Target {
+
+        /**
+         * Gives the number of handles, which are numbered from 0.
+         * @return   The number of handles.
+         */
+        int handleCount();
+
+        /**
+         * Tells whether a touch at the given location should grab the given handle.
+         * @param handle   The handle.
+         * @param x        The x coordinate of the touch.
+         * @param y        The y coordinate of the touch.
+         * @return   True if the touch is close enough to the handle.
+         */
+        boolean isNear(int handle, float x, float y);
+
+        /**
+         * Gives the handle a touch grabs when it isn't near any handle.
+         * @return   The handle, or NO_HANDLE if such a touch shouldn't grab anything.
+         */
+        int defaultHandle();
+
+        /**
+         * Moves a grabbed handle to follow its pointer.
+         * @param handle   The handle.
+         * @param x        The new x coordinate.
+         * @param y        The new y coordinate.
+         */
+        void moveHandle(int handle, float x, float y);
+
+        /**
+         * Lets go of a handle when its pointer leaves the screen.
+         * @param handle   The handle.
+         */
+        void releaseHandle(int handle);
+    }
+
+    /**
+     * Stands for no handle at all.
+     */
+    static final int NO_HANDLE = -1;
+
+    /**
+     * The most pointers tracked at once.  Any more are ignored.
+     */
+    static final int MAX_POINTERS = 10;
+
+    /**
+     * The Target the pointers are routed to.
+     */
+    private final Target target;
+
+    /**
+     * The id of each active pointer.  Only the first activeCount entries are used.
+     */
+    private final int[] pointerIds = new int[MAX_POINTERS];
+
+    /**
+     * The handle each active pointer has grabbed, or NO_HANDLE.
+     */
+    private final int[] grabbedHandles = new int[MAX_POINTERS];
+
+    /**
+     * The motion predictor of each active pointer.
+     */
+    private final TouchPredictor[] predictors = new TouchPredictor[MAX_POINTERS];
+
+    /**
+     * The number of pointers currently tracked.
+     */
+    private int activeCount;
+
+    /**
+     * How far ahead grabbed handles are predicted, in milliseconds, or 0 to not predict at all.
+     */
+    private float predictionMillis;
+
+    /**
+     * Sets up a dispatcher for a Target.
+     * @param target   The Target the pointers are routed to.
+     */
+    MultiTouchDispatcher(Target target) {
+        this.target = target;
+        for (int slot = 0; slot < MAX_POINTERS; ++slot) {
+            predictors[slot] = new TouchPredictor();
+        }
+    }
+
+    /**
+     * Sets how far ahead grabbed handles are predicted.  About one frame hides the lag best.
+     * @param millis   The prediction horizon in milliseconds, or 0 to turn prediction off.
+     */
+    void setPredictionMillis(float millis) {
+        predictionMillis = millis;
+    }
+
+    /**
+     * Routes a touch event to the Target.
+     * @param event   The event.
+     */
+    void dispatch(MotionEvent event) {
+        int index;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // A new gesture, so forget anything left over from the last one.
+                cancelAll();
+                pointerDown(event.getPointerId(0), event.getX(0), event.getY(0), event.getEventTime());
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                index = event.getActionIndex();
+                pointerDown(event.getPointerId(index), event.getX(index), event.getY(index), event.getEventTime());
+                break;
+            case MotionEvent.ACTION_MOVE:
+                for (index = 0; index < event.getPointerCount(); ++index) {
+                    // The history only teaches the predictors; the handle just goes to the latest position.
+                    int slot = slotOf(event.getPointerId(index));
+                    if (slot >= 0) {
+                        for (int h = 0; h < event.getHistorySize(); ++h) {
+                            predictors[slot].addSample(event.getHistoricalEventTime(h),
+                                    event.getHistoricalX(index, h), event.getHistoricalY(index, h));
+                        }
+                    }
+                    pointerMove(event.getPointerId(index), event.getX(index), event.getY(index), event.getEventTime());
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+            case MotionEvent.ACTION_UP:
+                index = event.getActionIndex();
+                pointerMove(event.getPointerId(index), event.getX(index), event.getY(index), event.getEventTime());
+                pointerUp(event.getPointerId(index));
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                cancelAll();
+                break;
+        }
+    }
+
+    /**
+     * Starts tracking a pointer and lets it grab a handle.
+     * @param id     The pointer id.
+     * @param x      The x coordinate.
+     * @param y      The y coordinate.
+     * @param time   The time of the event, in milliseconds.
+     */
+    void pointerDown(int id, float x, float y, long time) {
+        if (activeCount == MAX_POINTERS || slotOf(id) >= 0) {
+            return;
+        }
+        pointerIds[activeCount] = id;
+        grabbedHandles[activeCount] = pickHandle(x, y, true);
+        predictors[activeCount].reset(time, x, y);
+        activeCount += 1;
+        if (grabbedHandles[activeCount - 1] != NO_HANDLE) {
+            target.moveHandle(grabbedHandles[activeCount - 1], x, y);
+        }
+    }
+
+    /**
+     * Moves the handle a pointer has grabbed.  A pointer that hasn't grabbed anything yet
+     * grabs the first free handle it passes over.
+     * @param id     The pointer id.
+     * @param x      The x coordinate.
+     * @param y      The y coordinate.
+     * @param time   The time of the event, in milliseconds.
+     */
+    void pointerMove(int id, float x, float y, long time) {
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return;
+        }
+        predictors[slot].addSample(time, x, y);
+        if (grabbedHandles[slot] == NO_HANDLE) {
+            grabbedHandles[slot] = pickHandle(x, y, false);
+        }
+        if (grabbedHandles[slot] != NO_HANDLE) {
+            target.moveHandle(grabbedHandles[slot], x, y);
+        }
+    }
+
+    /**
+     * Stops tracking a pointer and releases its handle.
+     * @param id   The pointer id.
+     */
+    void pointerUp(int id) {
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return;
+        }
+        int handle = grabbedHandles[slot];
+        removeSlot(slot);
+        if (handle != NO_HANDLE) {
+            target.releaseHandle(handle);
+        }
+    }
+
+    /**
+     * Stops tracking every pointer and releases every handle.
+     */
+    void cancelAll() {
+        while (activeCount > 0) {
+            pointerUp(pointerIds[activeCount - 1]);
+        }
+    }
+
+    /**
+     * Tells whether some pointer is holding a handle.
+     * @param handle   The handle.
+     * @return   True if the handle is grabbed.
+     */
+    boolean isGrabbed(int handle) {
+        for (int slot = 0; slot < activeCount; ++slot) {
+            if (grabbedHandles[slot] == handle) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Predicts where a grabbed handle will be drawn next.  A prediction settles back onto the handle
+     * once its finger stops, so the caller should keep drawing frames while this returns true.
+     * @param handle   The handle.
+     * @param now      The current time, in milliseconds, on the same clock as the events.
+     * @param out      Gets the predicted x and y coordinates.
+     * @return   True if there is a prediction, false if the handle should be drawn where it is.
+     */
+    boolean predictHandle(int handle, long now, float[] out) {
+        if (predictionMillis <= 0.0f) {
+            return false;
+        }
+        for (int slot = 0; slot < activeCount; ++slot) {
+            if (grabbedHandles[slot] == handle && predictors[slot].canPredict()) {
+                return predictors[slot].predict(now, predictionMillis, out);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives the number of pointers currently tracked.
+     * @return   The number of pointers.
+     */
+    int activePointers() {
+        return activeCount;
+    }
+
+    /**
+     * Finds the free handle a touch at the given location should grab.
+     * @param x            The x coordinate.
+     * @param y            The y coordinate.
+     * @param useDefault   Whether to fall back on the Target's default handle.
+     * @return   The handle, or NO_HANDLE.
+     */
+    private int pickHandle(float x, float y, boolean useDefault) {
+        for (int handle = 0; handle < target.handleCount(); ++handle) {
+            if (!isGrabbed(handle) && target.isNear(handle, x, y)) {
+                return handle;
+            }
+        }
+        if (useDefault) {
+            int handle = target.defaultHandle();
+            if (handle != NO_HANDLE && !isGrabbed(handle)) {
+                return handle;
+            }
+        }
+        return NO_HANDLE;
+    }
+
+    /**
+     * Finds where a pointer is kept.
+     * @param id   The pointer id.
+     * @return   The slot, or -1 if the pointer isn't tracked.
+     */
+    private int slotOf(int id) {
+        for (int slot = 0; slot < activeCount; ++slot) {
+            if (pointerIds[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Forgets the pointer in a slot by moving the last pointer into it.
+     * @param slot   The slot.
+     */
+    private void removeSlot(int slot) {
+        activeCount -= 1;
+        pointerIds[slot] = pointerIds[activeCount];
+        grabbedHandles[slot] = grabbedHandles[activeCount];
+        // Swap the predictors rather than copy them, so none is ever lost or shared.
+        TouchPredictor predictor = predictors[slot];
+        predictors[slot] = predictors[activeCount];
+        predictors[activeCount] = predictor;
+    }
+}
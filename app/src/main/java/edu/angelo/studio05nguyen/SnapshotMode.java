@@ -0,0 +1,21 @@
+package edu.angelo.studio05nguyen;
+
+/**
+ * A drawing mode that can pack its model into a compact snapshot of floats and
+ * rebuild itself from one, so it survives the Activity being recreated.
+ */
+interface SnapshotMode {
+
+    /**
+     * Packs everything needed to rebuild this mode into an array.
+     * Large derived data should be cached elsewhere rather than put in the snapshot.
+     * @return   The snapshot.
+     */
+    float[] saveSnapshot();
+
+    /**
+     * Rebuilds this mode from a snapshot made by saveSnapshot.
+     * @param snapshot   The snapshot to restore.
+     */
+    void restoreSnapshot(float[] snapshot);
+}
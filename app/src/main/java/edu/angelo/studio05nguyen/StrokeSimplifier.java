@@ -0,0 +1,207 @@
+package edu.angelo.studio05nguyen;
+
+/**
+ * Records a freehand stroke as a simplified polyline while the points are still arriving,
+ * so memory and drawing time stay bounded however long the stroke gets.
+ * <p>
+ * Raw points since the last kept point wait in a small window.  As long as every one of them
+ * is within the tolerance of the segment from the last kept point to the newest point, they are
+ * not needed, which is the Douglas-Peucker test applied one point at a time.  When a point falls
+ * outside, or the window is full, the point before the newest one is kept and the window starts
+ * over from it.
+ * If the polyline reaches its capacity, the kept point that matters least (the one making
+ * the smallest triangle with its neighbours, as in Visvalingam's algorithm) is dropped.
+ */
+class StrokeSimplifier {
+
+    /**
+     * The most raw points waiting to be tested at once.
+     */
+    private static final int WINDOW_SIZE = 64;
+
+    /**
+     * How far, in pixels, a raw point may be from the simplified polyline.
+     */
+    private final float tolerance;
+
+    /**
+     * The most points the simplified polyline may keep.
+     */
+    private final int capacity;
+
+    /**
+     * The kept points as x, y pairs, followed by the newest raw point as a temporary end
+     * so the whole stroke can be drawn straight from this array.
+     */
+    private final float[] points;
+
+    /**
+     * The number of kept points, not counting the temporary end.
+     */
+    private int count;
+
+    /**
+     * Whether the newest raw point hasn't been kept yet and sits at the end of points.
+     */
+    private boolean hasTail;
+
+    // The raw points since the last kept point, oldest first.
+    private final float[] windowX = new float[WINDOW_SIZE];
+    private final float[] windowY = new float[WINDOW_SIZE];
+    private int windowLength;
+
+    /**
+     * Sets up an empty stroke.
+     * @param tolerance   How far, in pixels, a raw point may be from the simplified polyline.
+     * @param capacity    The most points to keep, at least 3.
+     */
+    StrokeSimplifier(float tolerance, int capacity) {
+        this.tolerance = tolerance;
+        this.capacity = Math.max(3, capacity);
+        points = new float[2 * (this.capacity + 1)];
+    }
+
+    /**
+     * Forgets the whole stroke.
+     */
+    void clear() {
+        count = 0;
+        hasTail = false;
+        windowLength = 0;
+    }
+
+    /**
+     * Adds the next raw point of the stroke.
+     * @param x   The x coordinate.
+     * @param y   The y coordinate.
+     */
+    void add(float x, float y) {
+        if (count == 0) {
+            keep(x, y);
+            return;
+        }
+        if (windowLength > 0 && (windowLength == WINDOW_SIZE || !windowFits(x, y))) {
+            // The newest point can't replace the waiting ones, so keep the one before it.
+            keep(windowX[windowLength - 1], windowY[windowLength - 1]);
+        }
+        windowX[windowLength] = x;
+        windowY[windowLength] = y;
+        windowLength += 1;
+        points[2 * count] = x;
+        points[2 * count + 1] = y;
+        hasTail = true;
+    }
+
+    /**
+     * Ends the stroke at a final point, which is always kept.
+     * @param x   The x coordinate.
+     * @param y   The y coordinate.
+     */
+    void finish(float x, float y) {
+        add(x, y);
+        if (hasTail) {
+            keep(points[2 * count], points[2 * count + 1]);
+        }
+    }
+
+    /**
+     * Gives the number of points to draw, including the temporary end.
+     * @return   The number of points.
+     */
+    int pointCount() {
+        return hasTail ? count + 1 : count;
+    }
+
+    /**
+     * Gives the points to draw as x, y pairs.  Only the first pointCount pairs are used.
+     * The array is live, so it shouldn't be changed or held on to.
+     * @return   The points.
+     */
+    float[] points() {
+        return points;
+    }
+
+    /**
+     * Replaces the stroke with points that were simplified before, such as from a snapshot.
+     * @param from     The array holding the points as x, y pairs.
+     * @param offset   Where the points start in from.
+     * @param n        The number of points.
+     */
+    void setPoints(float[] from, int offset, int n) {
+        clear();
+        for (int i = 0; i < n; ++i) {
+            keep(from[offset + 2 * i], from[offset + 2 * i + 1]);
+        }
+    }
+
+    /**
+     * Tells whether all the waiting raw points are close enough to the segment
+     * from the last kept point to a new point.
+     * @param x   The x coordinate of the new point.
+     * @param y   The y coordinate of the new point.
+     * @return   True if the waiting points can all be dropped in favour of the new one.
+     */
+    private boolean windowFits(float x, float y) {
+        float startX = points[2 * count - 2];
+        float startY = points[2 * count - 1];
+        float dx = x - startX;
+        float dy = y - startY;
+        float lengthSquared = dx * dx + dy * dy;
+        float limit = tolerance * tolerance;
+        for (int i = 0; i < windowLength; ++i) {
+            float px = windowX[i] - startX;
+            float py = windowY[i] - startY;
+            float distanceSquared;
+            if (lengthSquared == 0.0f) {
+                distanceSquared = px * px + py * py;
+            } else {
+                // The distance from the point to the closest place on the segment.
+                float t = Math.max(0.0f, Math.min(1.0f, (px * dx + py * dy) / lengthSquared));
+                float ex = px - t * dx;
+                float ey = py - t * dy;
+                distanceSquared = ex * ex + ey * ey;
+            }
+            if (distanceSquared > limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a point to the kept polyline and empties the window, dropping the least
+     * important kept point first if the polyline is full.
+     * @param x   The x coordinate.
+     * @param y   The y coordinate.
+     */
+    private void keep(float x, float y) {
+        if (count == capacity) {
+            dropLeastImportant();
+        }
+        points[2 * count] = x;
+        points[2 * count + 1] = y;
+        count += 1;
+        hasTail = false;
+        windowLength = 0;
+    }
+
+    /**
+     * Removes the kept point, other than the first and last, that forms the smallest
+     * triangle with its neighbours.
+     */
+    private void dropLeastImportant() {
+        int smallest = 1;
+        float smallestArea = Float.MAX_VALUE;
+        for (int i = 1; i < count - 1; ++i) {
+            float area = Math.abs(
+                    (points[2 * i - 2] - points[2 * i + 2]) * (points[2 * i + 1] - points[2 * i - 1])
+                    - (points[2 * i - 2] - points[2 * i]) * (points[2 * i + 3] - points[2 * i - 1]));
+            if (area < smallestArea) {
+                smallestArea = area;
+                smallest = i;
+            }
+        }
+        System.arraycopy(points, 2 * smallest + 2, points, 2 * smallest, 2 * (count - smallest - 1));
+        count -= 1;
+    }
+}
@@ -0,0 +1,193 @@
+package edu.angelo.studio05nguyen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The compact binary format touch events are recorded in.
+ * A log is a magic number and version followed by one record per event:
+ * the action, the down time, the pointer count, the sample count and the pointer ids,
+ * then for each sample (oldest history first, current position last) its time and
+ * the x and y coordinates of every pointer.
+ * Nothing here depends on Android, so logs can be read and replayed in plain JVM tests.
+ */
+final class TouchLog {
+
+    /**
+     * Marks the start of a touch log.
+     */
+    static final int MAGIC = 0x544f4348;
+
+    /**
+     * The version of the format written by Writer.
+     */
+    static final int VERSION = 1;
+
+    private TouchLog() {
+    }
+
+    /**
+     * Writes events to a touch log.
+     */
+    static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+
+        /**
+         * Starts a new touch log.
+         * @param stream   The stream to write the log to.
+         * @throws IOException   If the header can't be written.
+         */
+        Writer(OutputStream stream) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        /**
+         * Writes one event.
+         * @param action         The action, including the pointer index bits.
+         * @param downTime       The time the gesture started, in milliseconds.
+         * @param pointerCount   The number of pointers.
+         * @param sampleCount    The number of samples: the history size plus one.
+         * @param ids            The id of each pointer.
+         * @param times          The time of each sample, in milliseconds.
+         * @param xs             The x coordinates, pointerCount per sample.
+         * @param ys             The y coordinates, pointerCount per sample.
+         * @throws IOException   If the event can't be written.
+         */
+        void write(int action, long downTime, int pointerCount, int sampleCount,
+                   int[] ids, long[] times, float[] xs, float[] ys) throws IOException {
+            out.writeInt(action);
+            out.writeLong(downTime);
+            out.writeShort(pointerCount);
+            out.writeShort(sampleCount);
+            for (int p = 0; p < pointerCount; ++p) {
+                out.writeShort(ids[p]);
+            }
+            for (int s = 0; s < sampleCount; ++s) {
+                out.writeLong(times[s]);
+                for (int p = 0; p < pointerCount; ++p) {
+                    out.writeFloat(xs[s * pointerCount + p]);
+                    out.writeFloat(ys[s * pointerCount + p]);
+                }
+            }
+        }
+
+        /**
+         * Gives the number of bytes written so far, including the header.
+         * @return   The size of the log.
+         */
+        int size() {
+            return out.size();
+        }
+
+        /**
+         * Pushes everything written so far to the underlying stream.
+         * @throws IOException   If the stream can't be flushed.
+         */
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a touch log one event at a time.
+     * The current event is held in the public arrays, which are reused from event to event.
+     */
+    static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+
+        /** The action of the current event, including the pointer index bits. */
+        int action;
+        /** The time the current gesture started, in milliseconds. */
+        long downTime;
+        /** The number of pointers in the current event. */
+        int pointerCount;
+        /** The number of samples in the current event: the history size plus one. */
+        int sampleCount;
+        /** The id of each pointer. */
+        int[] ids = new int[10];
+        /** The time of each sample, in milliseconds. */
+        long[] times = new long[8];
+        /** The x coordinates, pointerCount per sample. */
+        float[] xs = new float[80];
+        /** The y coordinates, pointerCount per sample. */
+        float[] ys = new float[80];
+
+        /**
+         * Opens a touch log.
+         * @param stream   The stream to read the log from.
+         * @throws IOException   If the stream isn't a touch log this version understands.
+         */
+        Reader(InputStream stream) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(stream));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a touch log");
+            }
+        }
+
+        /**
+         * Moves on to the next event.
+         * @return   True if there was another event, false at the end of the log.
+         * @throws IOException   If the log is damaged.
+         */
+        boolean next() throws IOException {
+            try {
+                action = in.readInt();
+            } catch (EOFException ex) {
+                return false;
+            }
+            downTime = in.readLong();
+            pointerCount = in.readUnsignedShort();
+            sampleCount = in.readUnsignedShort();
+            if (ids.length < pointerCount) {
+                ids = new int[pointerCount];
+            }
+            if (times.length < sampleCount) {
+                times = new long[sampleCount];
+            }
+            if (xs.length < pointerCount * sampleCount) {
+                xs = new float[pointerCount * sampleCount];
+                ys = new float[pointerCount * sampleCount];
+            }
+            for (int p = 0; p < pointerCount; ++p) {
+                ids[p] = in.readUnsignedShort();
+            }
+            for (int s = 0; s < sampleCount; ++s) {
+                times[s] = in.readLong();
+                for (int p = 0; p < pointerCount; ++p) {
+                    xs[s * pointerCount + p] = in.readFloat();
+                    ys[s * pointerCount + p] = in.readFloat();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gives the time of the current event, which is the time of its last sample.
+         * @return   The event time, in milliseconds.
+         */
+        long eventTime() {
+            return times[sampleCount - 1];
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
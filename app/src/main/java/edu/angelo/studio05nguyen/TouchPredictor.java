@@ -0,0 +1,251 @@
+package edu.angelo.studio05nguyen;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Guesses where a finger will be a little while from now, so whatever it drags can be drawn there
+ * instead of a frame or two behind.  It runs an alpha-beta-gamma filter (a constant-acceleration
+ * Kalman filter with fixed gains) on each axis.  Every real sample resets the position and
+ * corrects the velocity and acceleration estimates.  When samples stop coming, the finger has
+ * most likely stopped, so predictions shrink back to the last sample.
+ */
+class TouchPredictor {
+
+    /**
+     * How much of the velocity error each new sample corrects.
+     */
+    private static final float BETA = 0.6f;
+
+    /**
+     * How much of the acceleration error each new sample corrects.
+     */
+    private static final float GAMMA = 0.1f;
+
+    /**
+     * The farthest a prediction may be from the last real sample, in pixels,
+     * so a sudden stop doesn't fling the handle away.
+     */
+    private static final float MAX_DISTANCE = 64.0f;
+
+    /**
+     * How long after the last sample, in milliseconds, a prediction shrinks to nothing.
+     * Touch screens report at least once a frame while a finger moves, so a gap of two frames means it stopped.
+     */
+    private static final float STALE_MILLIS = 32.0f;
+
+    // The filter state: position, velocity (pixels per millisecond) and acceleration on each axis.
+    private float x;
+    private float y;
+    private float vx;
+    private float vy;
+    private float ax;
+    private float ay;
+
+    /**
+     * The time of the last sample, in milliseconds.
+     */
+    private long lastTime;
+
+    /**
+     * The number of samples since the last reset, up to 3.
+     */
+    private int samples;
+
+    /**
+     * Starts over from a new first sample, forgetting all motion.
+     * @param time   The time of the sample, in milliseconds.
+     * @param x      The x coordinate.
+     * @param y      The y coordinate.
+     */
+    void reset(long time, float x, float y) {
+        this.x = x;
+        this.y = y;
+        vx = 0.0f;
+        vy = 0.0f;
+        ax = 0.0f;
+        ay = 0.0f;
+        lastTime = time;
+        samples = 1;
+    }
+
+    /**
+     * Corrects the model with a real sample.
+     * @param time   The time of the sample, in milliseconds.
+     * @param x      The x coordinate.
+     * @param y      The y coordinate.
+     */
+    void addSample(long time, float x, float y) {
+        if (samples == 0) {
+            reset(time, x, y);
+            return;
+        }
+        float dt = time - lastTime;
+        if (dt <= 0.0f) {
+            // Nothing to learn about motion from a sample at the same time; just move.
+            this.x = x;
+            this.y = y;
+            return;
+        }
+        if (samples == 1) {
+            // The first difference is all we know about velocity so far.
+            vx = (x - this.x) / dt;
+            vy = (y - this.y) / dt;
+        } else {
+            float residualX = x - (this.x + vx * dt + 0.5f * ax * dt * dt);
+            float residualY = y - (this.y + vy * dt + 0.5f * ay * dt * dt);
+            vx += ax * dt + BETA * residualX / dt;
+            vy += ay * dt + BETA * residualY / dt;
+            ax += GAMMA * 2.0f * residualX / (dt * dt);
+            ay += GAMMA * 2.0f * residualY / (dt * dt);
+        }
+        this.x = x;
+        this.y = y;
+        lastTime = time;
+        samples = Math.min(samples + 1, 3);
+    }
+
+    /**
+     * Tells whether there have been enough samples to predict anything.
+     * @return   True if predictions are worth using.
+     */
+    boolean canPredict() {
+        return samples >= 2;
+    }
+
+    /**
+     * Predicts where the finger will be a while from now.  The longer it has been since the last
+     * sample, the less the prediction reaches ahead, until it is just the last sample.
+     * @param now             The current time, in milliseconds, on the same clock as the samples.
+     * @param horizonMillis   How far ahead to look, in milliseconds.
+     * @param out             Gets the predicted x and y coordinates.
+     * @return   True if the prediction still reaches ahead, false if it has settled on the last sample.
+     */
+    boolean predict(long now, float horizonMillis, float[] out) {
+        float elapsed = Math.max(0.0f, now - lastTime);
+        float h = horizonMillis * Math.max(0.0f, 1.0f - elapsed / STALE_MILLIS);
+        if (h <= 0.0f) {
+            out[0] = x;
+            out[1] = y;
+            return false;
+        }
+        float dx = vx * h + (samples >= 3 ? 0.5f * ax * h * h : 0.0f);
+        float dy = vy * h + (samples >= 3 ? 0.5f * ay * h * h : 0.0f);
+        float distance = (float) Math.sqrt(dx * dx + dy * dy);
+        if (distance > MAX_DISTANCE) {
+            dx *= MAX_DISTANCE / distance;
+            dy *= MAX_DISTANCE / distance;
+        }
+        out[0] = x + dx;
+        out[1] = y + dy;
+        return true;
+    }
+
+    /**
+     * How far predictions land from where the finger really was, compared with just drawing
+     * the last real sample.
+     */
+    static final class Error {
+
+        /** The root-mean-square distance from the prediction to the real position, in pixels. */
+        double predictedRms;
+
+        /** The root-mean-square distance from the last sample to the real position, in pixels. */
+        double laggingRms;
+
+        /** The number of predictions measured. */
+        int predictions;
+
+        @Override
+        public String toString() {
+            return String.format("%d predictions, %.2f px predicted vs %.2f px lagging",
+                    predictions, predictedRms, laggingRms);
+        }
+    }
+
+    /**
+     * Replays a touch log and measures how well a predictor with the given horizon does.
+     * Each gesture's first pointer is followed; after every sample the prediction is compared
+     * with where that pointer really was horizonMillis later.
+     * @param reader          The touch log.
+     * @param horizonMillis   How far ahead to predict, in milliseconds.
+     * @return   The measured error.
+     * @throws IOException   If the log is damaged.
+     */
+    static Error measure(TouchLog.Reader reader, float horizonMillis) throws IOException {
+        Error error = new Error();
+        long[] times = new long[256];
+        float[] xs = new float[256];
+        float[] ys = new float[256];
+        int count = 0;
+        int followedId = -1;
+        double predictedSum = 0.0;
+        double laggingSum = 0.0;
+        TouchPredictor predictor = new TouchPredictor();
+        float[] predicted = new float[2];
+
+        while (reader.next()) {
+            int action = reader.action & 0xff;
+            if (action == 0) { // ACTION_DOWN starts a new gesture.
+                count = 0;
+                followedId = reader.ids[0];
+            }
+            int pointer = -1;
+            for (int p = 0; p < reader.pointerCount; ++p) {
+                if (reader.ids[p] == followedId) {
+                    pointer = p;
+                }
+            }
+            if (pointer < 0) {
+                continue;
+            }
+            for (int s = 0; s < reader.sampleCount; ++s) {
+                if (count == times.length) {
+                    times = Arrays.copyOf(times, 2 * count);
+                    xs = Arrays.copyOf(xs, 2 * count);
+                    ys = Arrays.copyOf(ys, 2 * count);
+                }
+                times[count] = reader.times[s];
+                xs[count] = reader.xs[s * reader.pointerCount + pointer];
+                ys[count] = reader.ys[s * reader.pointerCount + pointer];
+                count += 1;
+            }
+            if (action != 1 && action != 3) { // Wait for ACTION_UP or ACTION_CANCEL.
+                continue;
+            }
+
+            // The gesture is over, so compare each prediction with what really happened.
+            int later = 0;
+            for (int i = 0; i < count; ++i) {
+                if (i == 0) {
+                    predictor.reset(times[i], xs[i], ys[i]);
+                } else {
+                    predictor.addSample(times[i], xs[i], ys[i]);
+                }
+                float target = times[i] + horizonMillis;
+                while (later < count && times[later] < target) {
+                    later += 1;
+                }
+                if (later == count || later == 0 || !predictor.canPredict()) {
+                    continue;
+                }
+                // Interpolate where the finger really was at the target time.
+                float span = times[later] - times[later - 1];
+                float t = span > 0.0f ? (target - times[later - 1]) / span : 1.0f;
+                float realX = xs[later - 1] + t * (xs[later] - xs[later - 1]);
+                float realY = ys[later - 1] + t * (ys[later] - ys[later - 1]);
+                predictor.predict(times[i], horizonMillis, predicted);
+                predictedSum += (predicted[0] - realX) * (predicted[0] - realX) + (predicted[1] - realY) * (predicted[1] - realY);
+                laggingSum += (xs[i] - realX) * (xs[i] - realX) + (ys[i] - realY) * (ys[i] - realY);
+                error.predictions += 1;
+            }
+            count = 0;
+            followedId = -1;
+        }
+        if (error.predictions > 0) {
+            error.predictedRms = Math.sqrt(predictedSum / error.predictions);
+            error.laggingRms = Math.sqrt(laggingSum / error.predictions);
+        }
+        return error;
+    }
+}
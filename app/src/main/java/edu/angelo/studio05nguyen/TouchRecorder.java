@@ -0,0 +1,173 @@
+package edu.angelo.studio05nguyen;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Records every MotionEvent reaching a mode into a touch log before passing it on,
+ * so the exact input of a session can be replayed later.
+ * Recording stops by itself once the log reaches MAX_LOG_BYTES.
+ */
+class TouchRecorder implements View.OnTouchListener {
+
+    /**
+     * The biggest a log may grow, in bytes.  That's a few minutes of constant dragging.
+     */
+    static final int MAX_LOG_BYTES = 4 << 20;
+
+    /**
+     * The ending every touch log file name has.
+     */
+    static final String LOG_EXTENSION = ".bin";
+
+    /**
+     * The listener the events are passed on to.
+     */
+    private final View.OnTouchListener delegate;
+
+    /**
+     * Writes the log, or is null once recording has failed or stopped.
+     */
+    private TouchLog.Writer writer;
+
+    // Reused from event to event so recording doesn't allocate.
+    private int[] ids = new int[10];
+    private long[] times = new long[8];
+    private float[] xs = new float[80];
+    private float[] ys = new float[80];
+
+    /**
+     * Starts recording into a new log file.
+     * @param file       The file to record into.
+     * @param delegate   The listener that really handles the events.
+     */
+    TouchRecorder(File file, View.OnTouchListener delegate) {
+        this.delegate = delegate;
+        try {
+            writer = new TouchLog.Writer(new FileOutputStream(file));
+        } catch (IOException ex) {
+            // We can't record, but the events still get passed on.
+            writer = null;
+        }
+    }
+
+    @Override
+    public boolean onTouch(View view, MotionEvent event) {
+        if (writer != null) {
+            record(event);
+        }
+        return delegate.onTouch(view, event);
+    }
+
+    /**
+     * Writes one event, including its history, to the log.
+     * @param event   The event to record.
+     */
+    private void record(MotionEvent event) {
+        int pointerCount = event.getPointerCount();
+        int historySize = event.getHistorySize();
+        int sampleCount = historySize + 1;
+        if (ids.length < pointerCount) {
+            ids = new int[pointerCount];
+        }
+        if (times.length < sampleCount) {
+            times = new long[sampleCount];
+        }
+        if (xs.length < pointerCount * sampleCount) {
+            xs = new float[pointerCount * sampleCount];
+            ys = new float[pointerCount * sampleCount];
+        }
+        for (int p = 0; p < pointerCount; ++p) {
+            ids[p] = event.getPointerId(p);
+        }
+        for (int h = 0; h < historySize; ++h) {
+            times[h] = event.getHistoricalEventTime(h);
+            for (int p = 0; p < pointerCount; ++p) {
+                xs[h * pointerCount + p] = event.getHistoricalX(p, h);
+                ys[h * pointerCount + p] = event.getHistoricalY(p, h);
+            }
+        }
+        times[historySize] = event.getEventTime();
+        for (int p = 0; p < pointerCount; ++p) {
+            xs[historySize * pointerCount + p] = event.getX(p);
+            ys[historySize * pointerCount + p] = event.getY(p);
+        }
+
+        try {
+            writer.write(event.getAction(), event.getDownTime(), pointerCount, sampleCount, ids, times, xs, ys);
+            int action = event.getActionMasked();
+            if (writer.size() >= MAX_LOG_BYTES) {
+                // The log is full, so keep what we have and stop.
+                close();
+            } else if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+                // Make sure each finished gesture reaches the file.
+                writer.flush();
+            }
+        } catch (IOException ex) {
+            // Give up recording rather than keep failing on every event.
+            close();
+        }
+    }
+
+    /**
+     * Tells whether events are still being written to the log.
+     * @return   False once recording has failed, filled the log or been stopped.
+     */
+    boolean isRecording() {
+        return writer != null;
+    }
+
+    /**
+     * Deletes the oldest touch logs in a folder, keeping only the newest ones.
+     * @param folder   The folder the logs are in.
+     * @param keep     How many logs to keep.
+     * @return   The number of logs deleted.
+     */
+    static int pruneLogs(File folder, int keep) {
+        File[] logs = folder.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(LOG_EXTENSION);
+            }
+        });
+        if (logs == null) {
+            return 0;
+        }
+        // Newest first, by when they were last written, with the name breaking ties so the order is always the same.
+        Arrays.sort(logs, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                int byTime = Long.compare(b.lastModified(), a.lastModified());
+                return byTime != 0 ? byTime : b.getName().compareTo(a.getName());
+            }
+        });
+        int deleted = 0;
+        for (int i = Math.max(keep, 0); i < logs.length; ++i) {
+            if (logs[i].delete()) {
+                deleted += 1;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Stops recording and closes the log file.
+     */
+    void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                // There's nothing more we can do with the file.
+            }
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package edu.angelo.studio05nguyen;
+
+import java.io.IOException;
+
+/**
+ * Feeds a recorded touch log to a Sink, either at the speed it was recorded or as fast as possible,
+ * and measures how long the Sink took with each event.
+ */
+final class TouchReplay {
+
+    /**
+     * Receives the events of a touch log as it's replayed.
+     */
+    interface Sink {
+
+        /**
+         * Handles one event.  The reader's arrays are only valid until this returns.
+         * @param event   The reader, positioned at the event.
+         */
+        void onEvent(TouchLog.Reader event);
+    }
+
+    /** The number of events replayed. */
+    int events;
+
+    /** The total time the Sink spent handling events, in nanoseconds. */
+    long handlingNanos;
+
+    /** The longest time the Sink spent on a single event, in nanoseconds. */
+    long worstNanos;
+
+    /** The wall-clock time the whole replay took, in nanoseconds. */
+    long elapsedNanos;
+
+    private TouchReplay() {
+    }
+
+    /**
+     * Replays every remaining event of a touch log.
+     * @param reader     The log to replay.
+     * @param sink       Where to send the events.
+     * @param realTime   True to wait between events as long as the user did, false to go as fast as possible.
+     * @return   The measurements of the replay.
+     * @throws IOException   If the log is damaged.
+     */
+    static TouchReplay run(TouchLog.Reader reader, Sink sink, boolean realTime) throws IOException {
+        TouchReplay replay = new TouchReplay();
+        long start = System.nanoTime();
+        long firstEventTime = 0;
+        while (reader.next()) {
+            if (realTime) {
+                if (replay.events == 0) {
+                    firstEventTime = reader.eventTime();
+                }
+                long wait = (reader.eventTime() - firstEventTime) - (System.nanoTime() - start) / 1000000L;
+                if (wait > 0) {
+                    try {
+                        Thread.sleep(wait);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            long before = System.nanoTime();
+            sink.onEvent(reader);
+            long took = System.nanoTime() - before;
+            replay.handlingNanos += took;
+            replay.worstNanos = Math.max(replay.worstNanos, took);
+            replay.events += 1;
+        }
+        replay.elapsedNanos = System.nanoTime() - start;
+        return replay;
+    }
+
+    /**
+     * Gives the average time the Sink spent per event.
+     * @return   The average, in milliseconds.
+     */
+    double averageMillis() {
+        return events == 0 ? 0.0 : handlingNanos / 1e6 / events;
+    }
+
+    /**
+     * Gives how many events the Sink handled per second of its own time.
+     * @return   The throughput, in events per second.
+     */
+    double eventsPerSecond() {
+        return handlingNanos == 0 ? 0.0 : events * 1e9 / handlingNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d events, %.3f ms average, %.3f ms worst, %.0f events/s",
+                events, averageMillis(), worstNanos / 1e6, eventsPerSecond());
+    }
+}
@@ -0,0 +1,37 @@
+package edu.angelo.studio05nguyen;
+
+/**
+ * A drawing mode whose edits can be undone and redone from the menu.
+ */
+interface UndoableMode {
+
+    /**
+     * Reverts the last edit.
+     * @return   True if there was an edit to revert.
+     */
+    boolean undo();
+
+    /**
+     * Reapplies the last reverted edit.
+     * @return   True if there was an edit to reapply.
+     */
+    boolean redo();
+
+    /**
+     * Tells whether there is an edit to revert.
+     * @return   True if undo would do something.
+     */
+    boolean canUndo();
+
+    /**
+     * Tells whether there is an edit to reapply.
+     * @return   True if redo would do something.
+     */
+    boolean canRedo();
+
+    /**
+     * Sets what to run whenever an edit is made, undone or redone, so the menu can keep up.
+     * @param listener   What to run, or null for nothing.
+     */
+    void setOnHistoryChangedListener(Runnable listener);
+}
@@ -0,0 +1,94 @@
+package edu.angelo.studio05nguyen;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for DependencyGraph.
+ */
+public class DependencyGraphTest {
+
+    private DependencyGraph graph;
+    private int a;
+    private int b;
+    private int midpoint;
+    private int fromA;
+    private int chained;
+
+    @Before
+    public void setUp() {
+        graph = new DependencyGraph();
+        a = graph.addInput(2);
+        b = graph.addInput(2);
+        midpoint = graph.addDerived(2, new DependencyGraph.Rule() {
+            @Override
+            public void compute(DependencyGraph graph, int node) {
+                graph.store(node, 0, (graph.get(a, 0) + graph.get(b, 0)) / 2.0f);
+                graph.store(node, 1, (graph.get(a, 1) + graph.get(b, 1)) / 2.0f);
+            }
+        }, a, b);
+        fromA = graph.addDerived(1, new DependencyGraph.Rule() {
+            @Override
+            public void compute(DependencyGraph graph, int node) {
+                graph.store(node, 0, graph.get(a, 0) * 10.0f);
+            }
+        }, a);
+        chained = graph.addDerived(1, new DependencyGraph.Rule() {
+            @Override
+            public void compute(DependencyGraph graph, int node) {
+                graph.store(node, 0, graph.get(midpoint, 0) + graph.get(fromA, 0));
+            }
+        }, midpoint, fromA);
+    }
+
+    @Test
+    public void computesDerivedValues() {
+        graph.setPoint(a, 2.0f, 4.0f);
+        graph.setPoint(b, 6.0f, 8.0f);
+        assertEquals(4.0, graph.get(midpoint, 0), 0.0);
+        assertEquals(6.0, graph.get(midpoint, 1), 0.0);
+        assertEquals(24.0, graph.get(chained, 0), 0.0);
+    }
+
+    @Test
+    public void recomputesOnlyDownstreamOfChanges() {
+        graph.setPoint(a, 2.0f, 4.0f);
+        graph.setPoint(b, 6.0f, 8.0f);
+        graph.get(chained, 0);
+        int before = graph.recomputations();
+
+        // Nothing moved, so nothing is recomputed.
+        graph.setPoint(a, 2.0f, 4.0f);
+        graph.get(chained, 0);
+        assertEquals(before, graph.recomputations());
+
+        // Moving B leaves the node that only uses A alone.
+        graph.setPoint(b, 10.0f, 8.0f);
+        assertTrue(graph.isDirty(midpoint));
+        assertTrue(graph.isDirty(chained));
+        assertFalse(graph.isDirty(fromA));
+        assertEquals(26.0, graph.get(chained, 0), 0.0);
+        assertEquals(before + 2, graph.recomputations());
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        int previous = a;
+        for (int i = 0; i < 50; ++i) {
+            final int input = previous;
+            previous = graph.addDerived(1, new DependencyGraph.Rule() {
+                @Override
+                public void compute(DependencyGraph graph, int node) {
+                    graph.store(node, 0, graph.get(input, 0) + 1.0f);
+                }
+            }, input);
+        }
+        graph.setPoint(a, 1.0f, 0.0f);
+        assertEquals(51.0, graph.get(previous, 0), 0.0);
+        graph.set(a, 0, 5.0f);
+        assertTrue(graph.isDirty(previous));
+        assertEquals(55.0, graph.get(previous, 0), 0.0);
+    }
+}
@@ -0,0 +1,69 @@
+package edu.angelo.studio05nguyen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for EditHistory.
+ */
+public class EditHistoryTest {
+
+    @Test
+    public void undoesAndRedoesInOrder() {
+        EditHistory history = new EditHistory(10);
+        assertFalse(history.canUndo());
+        history.record(0, 1, 10.0f, 11.0f, 20.0f, 21.0f);
+        history.record(0, 2, 30.0f, 31.0f, 40.0f, 41.0f);
+
+        int edit = history.undo();
+        assertEquals(2, history.index(edit));
+        assertEquals(30.0, history.oldX(edit), 0.0);
+        edit = history.undo();
+        assertEquals(1, history.index(edit));
+        assertEquals(-1, history.undo());
+
+        edit = history.redo();
+        assertEquals(1, history.index(edit));
+        assertEquals(21.0, history.newY(edit), 0.0);
+        assertTrue(history.canRedo());
+    }
+
+    @Test
+    public void newEditForgetsRedo() {
+        EditHistory history = new EditHistory(10);
+        history.record(0, 1, 0.0f, 0.0f, 1.0f, 1.0f);
+        history.record(0, 2, 0.0f, 0.0f, 2.0f, 2.0f);
+        history.undo();
+        history.record(0, 3, 0.0f, 0.0f, 3.0f, 3.0f);
+        assertFalse(history.canRedo());
+        assertEquals(3, history.index(history.undo()));
+        assertEquals(1, history.index(history.undo()));
+        assertFalse(history.canUndo());
+    }
+
+    @Test
+    public void forgetsOldestWhenFull() {
+        EditHistory history = new EditHistory(3);
+        for (int i = 0; i < 5; ++i) {
+            history.record(0, i, 0.0f, 0.0f, i, i);
+        }
+        assertEquals(4, history.index(history.undo()));
+        assertEquals(3, history.index(history.undo()));
+        assertEquals(2, history.index(history.undo()));
+        assertEquals(-1, history.undo());
+        assertEquals(2, history.index(history.redo()));
+    }
+
+    @Test
+    public void keepsCheckpoints() {
+        EditHistory history = new EditHistory(4);
+        float[] state = {1.0f, 2.0f, 3.0f};
+        history.record(0, 0, 0.0f, 0.0f, 1.0f, 1.0f);
+        history.recordCheckpoint(1, state);
+        int edit = history.undo();
+        assertEquals(1, history.kind(edit));
+        assertSame(state, history.checkpoint(edit));
+        assertNull(history.checkpoint(history.undo()));
+    }
+}
@@ -0,0 +1,39 @@
+package edu.angelo.studio05nguyen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for GeometryCache.
+ */
+public class GeometryCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackWhatWasWritten() throws Exception {
+        File file = folder.newFile("lines.bin");
+        float[] header = {1.0f, 2.0f, 3.0f, 4.0f, 5.0f};
+        float[] lines = {10.0f, 20.0f, 30.0f, 40.0f, 50.0f, 60.0f, 70.0f, 80.0f};
+        assertTrue(GeometryCache.write(file, header, lines));
+        assertArrayEquals(lines, GeometryCache.read(file, header), 0.0f);
+    }
+
+    @Test
+    public void ignoresGeometryForOtherInputs() throws Exception {
+        File file = folder.newFile("lines.bin");
+        assertTrue(GeometryCache.write(file, new float[] {1.0f, 2.0f}, new float[] {3.0f, 4.0f}));
+        assertNull(GeometryCache.read(file, new float[] {1.0f, 2.5f}));
+        assertNull(GeometryCache.read(file, new float[] {1.0f}));
+    }
+
+    @Test
+    public void ignoresMissingFile() {
+        assertNull(GeometryCache.read(new File(folder.getRoot(), "missing.bin"), new float[] {1.0f}));
+    }
+}
@@ -0,0 +1,118 @@
+package edu.angelo.studio05nguyen;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for MultiTouchDispatcher.
+ */
+public class MultiTouchDispatcherTest {
+
+    /**
+     * Ten handles in a row, 100 apart, with handle 0 as the default.
+     */
+    private static class Handles implements MultiTouchDispatcher.Target {
+        float[] xs = new float[10];
+        float[] ys = new float[10];
+        int released = MultiTouchDispatcher.NO_HANDLE;
+        int defaultHandle = MultiTouchDispatcher.NO_HANDLE;
+
+        Handles() {
+            for (int i = 0; i < xs.length; ++i) {
+                xs[i] = 100.0f * i;
+            }
+        }
+
+        @Override
+        public int handleCount() {
+            return xs.length;
+        }
+
+        @Override
+        public boolean isNear(int handle, float x, float y) {
+            return Math.abs(x - xs[handle]) <= 10.0f && Math.abs(y - ys[handle]) <= 10.0f;
+        }
+
+        @Override
+        public int defaultHandle() {
+            return defaultHandle;
+        }
+
+        @Override
+        public void moveHandle(int handle, float x, float y) {
+            xs[handle] = x;
+            ys[handle] = y;
+        }
+
+        @Override
+        public void releaseHandle(int handle) {
+            released = handle;
+        }
+    }
+
+    private Handles handles;
+    private MultiTouchDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        handles = new Handles();
+        dispatcher = new MultiTouchDispatcher(handles);
+    }
+
+    @Test
+    public void dragsTwoHandlesAtOnce() {
+        dispatcher.pointerDown(0, 2.0f, 0.0f, 0);
+        dispatcher.pointerDown(1, 303.0f, 0.0f, 0);
+        dispatcher.pointerMove(0, 5.0f, 50.0f, 0);
+        dispatcher.pointerMove(1, 310.0f, 60.0f, 0);
+        assertEquals(5.0, handles.xs[0], 0.0);
+        assertEquals(50.0, handles.ys[0], 0.0);
+        assertEquals(310.0, handles.xs[3], 0.0);
+        assertEquals(60.0, handles.ys[3], 0.0);
+        assertTrue(dispatcher.isGrabbed(0));
+        assertTrue(dispatcher.isGrabbed(3));
+
+        dispatcher.pointerUp(0);
+        assertEquals(0, handles.released);
+        assertFalse(dispatcher.isGrabbed(0));
+        dispatcher.pointerMove(1, 320.0f, 70.0f, 0);
+        assertEquals(320.0, handles.xs[3], 0.0);
+        assertEquals(5.0, handles.xs[0], 0.0);
+    }
+
+    @Test
+    public void tracksTenPointers() {
+        for (int id = 0; id < 11; ++id) {
+            dispatcher.pointerDown(id, 100.0f * id, 0.0f, 0);
+        }
+        assertEquals(MultiTouchDispatcher.MAX_POINTERS, dispatcher.activePointers());
+        for (int id = 0; id < 10; ++id) {
+            dispatcher.pointerMove(id, 100.0f * id + 1.0f, 5.0f, 0);
+            assertEquals(5.0, handles.ys[id], 0.0);
+        }
+        dispatcher.cancelAll();
+        assertEquals(0, dispatcher.activePointers());
+    }
+
+    @Test
+    public void grabsDefaultHandleOnlyOnce() {
+        handles.defaultHandle = 5;
+        dispatcher.pointerDown(0, 1000.0f, 1000.0f, 0);
+        dispatcher.pointerDown(1, 2000.0f, 2000.0f, 0);
+        assertEquals(1000.0, handles.xs[5], 0.0);
+        dispatcher.pointerMove(1, 2100.0f, 2100.0f, 0);
+        assertEquals(1000.0, handles.xs[5], 0.0);
+    }
+
+    @Test
+    public void grabsHandlePassedOver() {
+        dispatcher.pointerDown(0, 50.0f, 0.0f, 0);
+        assertFalse(dispatcher.isGrabbed(1));
+        dispatcher.pointerMove(0, 98.0f, 0.0f, 0);
+        assertTrue(dispatcher.isGrabbed(1));
+        dispatcher.pointerMove(0, 150.0f, 40.0f, 0);
+        assertEquals(150.0, handles.xs[1], 0.0);
+    }
+}
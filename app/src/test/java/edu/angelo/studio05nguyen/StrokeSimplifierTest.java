@@ -0,0 +1,106 @@
+package edu.angelo.studio05nguyen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for StrokeSimplifier.
+ */
+public class StrokeSimplifierTest {
+
+    @Test
+    public void collapsesStraightLine() {
+        StrokeSimplifier stroke = new StrokeSimplifier(1.0f, 100);
+        for (int i = 0; i <= 50; ++i) {
+            stroke.add(i * 4.0f, i * 2.0f + ((i % 2) * 0.5f));
+        }
+        // Only the start and the moving end are needed for an almost straight line.
+        assertEquals(2, stroke.pointCount());
+        stroke.finish(200.0f, 100.0f);
+        assertEquals(2, stroke.pointCount());
+        assertEquals(200.0, stroke.points()[2], 0.0);
+    }
+
+    @Test
+    public void keepsAPointWheneverTheWindowFills() {
+        StrokeSimplifier stroke = new StrokeSimplifier(1.0f, 100);
+        for (int i = 0; i < 200; ++i) {
+            stroke.add(i, 0.0f);
+        }
+        stroke.finish(200.0f, 0.0f);
+        // A full window of 64 raw points ends in a kept point even on a straight line.
+        assertEquals(5, stroke.pointCount());
+        assertEquals(64.0, stroke.points()[2], 0.0);
+        assertEquals(128.0, stroke.points()[4], 0.0);
+        assertEquals(192.0, stroke.points()[6], 0.0);
+        assertEquals(200.0, stroke.points()[8], 0.0);
+    }
+
+    @Test
+    public void keepsCorners() {
+        StrokeSimplifier stroke = new StrokeSimplifier(1.0f, 100);
+        for (int i = 0; i <= 20; ++i) {
+            stroke.add(i * 5.0f, 0.0f);
+        }
+        for (int i = 1; i <= 20; ++i) {
+            stroke.add(100.0f, i * 5.0f);
+        }
+        stroke.finish(100.0f, 100.0f);
+        assertEquals(3, stroke.pointCount());
+        assertEquals(100.0, stroke.points()[2], 0.0);
+        assertEquals(0.0, stroke.points()[3], 0.0);
+    }
+
+    @Test
+    public void staysWithinToleranceOfRawPoints() {
+        float tolerance = 2.0f;
+        StrokeSimplifier stroke = new StrokeSimplifier(tolerance, 1000);
+        float[] raw = new float[2000];
+        for (int i = 0; i < 1000; ++i) {
+            raw[2 * i] = 300.0f + 200.0f * (float) Math.cos(i / 50.0);
+            raw[2 * i + 1] = 300.0f + 200.0f * (float) Math.sin(i / 50.0);
+            stroke.add(raw[2 * i], raw[2 * i + 1]);
+        }
+        stroke.finish(raw[1998], raw[1999]);
+        int n = stroke.pointCount();
+        assertTrue(n < 100);
+        float[] kept = stroke.points();
+        for (int i = 0; i < 1000; ++i) {
+            assertTrue(distanceToPolyline(raw[2 * i], raw[2 * i + 1], kept, n) <= tolerance + 1e-3);
+        }
+    }
+
+    @Test
+    public void neverKeepsMoreThanCapacity() {
+        StrokeSimplifier stroke = new StrokeSimplifier(0.5f, 32);
+        for (int i = 0; i < 100000; ++i) {
+            stroke.add((float) (i % 400), (float) ((i * 37) % 300));
+        }
+        stroke.finish(0.0f, 0.0f);
+        assertTrue(stroke.pointCount() <= 32);
+        assertEquals(0.0, stroke.points()[0], 0.0);
+        assertEquals(0.0, stroke.points()[2 * stroke.pointCount() - 2], 0.0);
+    }
+
+    @Test
+    public void restoresPoints() {
+        StrokeSimplifier stroke = new StrokeSimplifier(1.0f, 10);
+        stroke.setPoints(new float[] {9.0f, 1.0f, 2.0f, 3.0f, 4.0f, 5.0f, 6.0f}, 1, 3);
+        assertEquals(3, stroke.pointCount());
+        assertEquals(6.0, stroke.points()[5], 0.0);
+    }
+
+    private static float distanceToPolyline(float x, float y, float[] points, int n) {
+        float best = Float.MAX_VALUE;
+        for (int i = 1; i < n; ++i) {
+            float ax = points[2 * i - 2];
+            float ay = points[2 * i - 1];
+            float dx = points[2 * i] - ax;
+            float dy = points[2 * i + 1] - ay;
+            float t = Math.max(0.0f, Math.min(1.0f, ((x - ax) * dx + (y - ay) * dy) / (dx * dx + dy * dy)));
+            best = Math.min(best, (float) Math.hypot(x - ax - t * dx, y - ay - t * dy));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,87 @@
+package edu.angelo.studio05nguyen;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for TouchLog and TouchReplay.
+ */
+public class TouchLogTest {
+
+    /**
+     * Records a two-finger gesture: one down, a second down, a move with history, then both up.
+     */
+    private static byte[] recordGesture() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TouchLog.Writer writer = new TouchLog.Writer(bytes);
+        writer.write(0, 100, 1, 1, new int[] {0}, new long[] {100}, new float[] {10}, new float[] {20});
+        writer.write(0x105, 100, 2, 1, new int[] {0, 1}, new long[] {120},
+                new float[] {10, 50}, new float[] {20, 60});
+        writer.write(2, 100, 2, 2, new int[] {0, 1}, new long[] {130, 140},
+                new float[] {11, 51, 12, 52}, new float[] {21, 61, 22, 62});
+        writer.write(6, 100, 2, 1, new int[] {0, 1}, new long[] {150},
+                new float[] {12, 52}, new float[] {22, 62});
+        writer.write(1, 100, 1, 1, new int[] {0}, new long[] {160}, new float[] {12}, new float[] {22});
+        writer.close();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void readsBackEveryEvent() throws Exception {
+        TouchLog.Reader reader = new TouchLog.Reader(new ByteArrayInputStream(recordGesture()));
+        assertTrue(reader.next());
+        assertEquals(0, reader.action);
+        assertTrue(reader.next());
+        assertEquals(0x105, reader.action);
+        assertEquals(2, reader.pointerCount);
+        assertEquals(1, reader.ids[1]);
+        assertTrue(reader.next());
+        assertEquals(2, reader.sampleCount);
+        assertEquals(130, reader.times[0]);
+        assertEquals(140, reader.eventTime());
+        assertEquals(52.0, reader.xs[3], 0.0);
+        assertEquals(62.0, reader.ys[3], 0.0);
+        assertTrue(reader.next());
+        assertTrue(reader.next());
+        assertEquals(1, reader.action);
+        assertFalse(reader.next());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws Exception {
+        new TouchLog.Reader(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    public void replaysAsFastAsPossible() throws Exception {
+        final int[] samples = new int[1];
+        TouchReplay replay = TouchReplay.run(new TouchLog.Reader(new ByteArrayInputStream(recordGesture())),
+                new TouchReplay.Sink() {
+                    @Override
+                    public void onEvent(TouchLog.Reader event) {
+                        samples[0] += event.sampleCount;
+                    }
+                }, false);
+        assertEquals(5, replay.events);
+        assertEquals(6, samples[0]);
+        assertTrue(replay.elapsedNanos < 60000000L);
+    }
+
+    @Test
+    public void replaysAtOriginalSpeed() throws Exception {
+        TouchReplay replay = TouchReplay.run(new TouchLog.Reader(new ByteArrayInputStream(recordGesture())),
+                new TouchReplay.Sink() {
+                    @Override
+                    public void onEvent(TouchLog.Reader event) {
+                    }
+                }, true);
+        assertEquals(5, replay.events);
+        // The gesture spans 60 ms from its first event to its last.
+        assertTrue(replay.elapsedNanos >= 55000000L);
+    }
+}
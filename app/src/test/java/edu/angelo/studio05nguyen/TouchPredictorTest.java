@@ -0,0 +1,129 @@
+package edu.angelo.studio05nguyen;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for TouchPredictor.
+ */
+public class TouchPredictorTest {
+
+    @Test
+    public void extrapolatesSteadyMotion() {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.reset(0, 0.0f, 0.0f);
+        assertFalse(predictor.canPredict());
+        for (int t = 8; t <= 80; t += 8) {
+            predictor.addSample(t, t * 0.5f, t * 0.25f);
+        }
+        float[] out = new float[2];
+        assertTrue(predictor.predict(80, 16.0f, out));
+        assertEquals(48.0, out[0], 0.5);
+        assertEquals(24.0, out[1], 0.5);
+    }
+
+    @Test
+    public void settlesWhenTheFingerStops() {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.reset(0, 0.0f, 0.0f);
+        for (int t = 8; t <= 80; t += 8) {
+            predictor.addSample(t, t * 0.5f, 0.0f);
+        }
+        float[] out = new float[2];
+        // Halfway to stale, the prediction reaches half as far.
+        assertTrue(predictor.predict(96, 16.0f, out));
+        assertEquals(44.0, out[0], 0.5);
+        // Two frames without a sample, and it's back on the last sample.
+        assertFalse(predictor.predict(112, 16.0f, out));
+        assertEquals(40.0, out[0], 0.0);
+        assertFalse(predictor.predict(5000, 16.0f, out));
+        assertEquals(40.0, out[0], 0.0);
+    }
+
+    @Test
+    public void limitsHowFarItReaches() {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.reset(0, 0.0f, 0.0f);
+        predictor.addSample(1, 500.0f, 0.0f);
+        float[] out = new float[2];
+        predictor.predict(1, 100.0f, out);
+        assertEquals(564.0, out[0], 0.01);
+    }
+
+    @Test
+    public void beatsLaggingOnRecordedArc() throws Exception {
+        // A finger sweeping a circular arc, sampled every 8 ms with two samples of history per event.
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TouchLog.Writer writer = new TouchLog.Writer(bytes);
+        int[] ids = {0};
+        long[] times = new long[3];
+        float[] xs = new float[3];
+        float[] ys = new float[3];
+        writer.write(0, 0, 1, 1, ids, new long[] {0}, new float[] {700.0f}, new float[] {400.0f});
+        for (int event = 1; event <= 40; ++event) {
+            for (int s = 0; s < 3; ++s) {
+                long t = (3 * (event - 1) + s + 1) * 8L;
+                times[s] = t;
+                xs[s] = 400.0f + 300.0f * (float) Math.cos(t / 400.0);
+                ys[s] = 400.0f + 300.0f * (float) Math.sin(t / 400.0);
+            }
+            writer.write(event == 40 ? 1 : 2, 0, 1, 3, ids, times, xs, ys);
+        }
+        writer.close();
+
+        TouchPredictor.Error error = TouchPredictor.measure(
+                new TouchLog.Reader(new ByteArrayInputStream(bytes.toByteArray())), 16.0f);
+        assertTrue(error.predictions > 100);
+        assertTrue(error.toString(), error.predictedRms < error.laggingRms / 4.0);
+    }
+
+    @Test
+    public void dispatcherPredictsGrabbedHandlesOnly() {
+        final float[] handle = new float[2];
+        MultiTouchDispatcher dispatcher = new MultiTouchDispatcher(new MultiTouchDispatcher.Target() {
+            @Override
+            public int handleCount() {
+                return 1;
+            }
+
+            @Override
+            public boolean isNear(int h, float x, float y) {
+                return true;
+            }
+
+            @Override
+            public int defaultHandle() {
+                return MultiTouchDispatcher.NO_HANDLE;
+            }
+
+            @Override
+            public void moveHandle(int h, float x, float y) {
+                handle[0] = x;
+                handle[1] = y;
+            }
+
+            @Override
+            public void releaseHandle(int h) {
+            }
+        });
+        float[] out = new float[2];
+        dispatcher.pointerDown(3, 0.0f, 0.0f, 0);
+        dispatcher.pointerMove(3, 10.0f, 0.0f, 10);
+        dispatcher.pointerMove(3, 20.0f, 0.0f, 20);
+        assertFalse(dispatcher.predictHandle(0, 20, out));
+
+        dispatcher.setPredictionMillis(10.0f);
+        assertTrue(dispatcher.predictHandle(0, 20, out));
+        assertEquals(20.0, handle[0], 0.0);
+        assertEquals(30.0, out[0], 0.5);
+        assertFalse(dispatcher.predictHandle(0, 100, out));
+        assertEquals(20.0, out[0], 0.0);
+
+        dispatcher.pointerUp(3);
+        assertFalse(dispatcher.predictHandle(0, 20, out));
+    }
+}
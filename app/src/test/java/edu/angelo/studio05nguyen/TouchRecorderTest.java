@@ -0,0 +1,37 @@
+package edu.angelo.studio05nguyen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for TouchRecorder.
+ */
+public class TouchRecorderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void prunesOldestLogs() throws Exception {
+        for (int i = 0; i < 5; ++i) {
+            File log = folder.newFile("mode0-" + i + TouchRecorder.LOG_EXTENSION);
+            assertTrue(log.setLastModified(1000000L * (i + 1)));
+        }
+        File other = folder.newFile("notes.txt");
+        assertTrue(other.setLastModified(1L));
+
+        assertEquals(3, TouchRecorder.pruneLogs(folder.getRoot(), 2));
+        assertFalse(new File(folder.getRoot(), "mode0-0.bin").exists());
+        assertFalse(new File(folder.getRoot(), "mode0-2.bin").exists());
+        assertTrue(new File(folder.getRoot(), "mode0-3.bin").exists());
+        assertTrue(new File(folder.getRoot(), "mode0-4.bin").exists());
+        assertTrue(other.exists());
+
+        assertEquals(0, TouchRecorder.pruneLogs(folder.getRoot(), 2));
+        assertEquals(2, TouchRecorder.pruneLogs(folder.getRoot(), 0));
+    }
+}
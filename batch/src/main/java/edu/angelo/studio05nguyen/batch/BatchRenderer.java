@@ -0,0 +1,223 @@
+package edu.angelo.studio05nguyen.batch;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders the jobs in a job file to PNG files without the app, spreading the work over a pool of threads.
+ * Each picture is cut into tiles that are drawn in parallel and stitched back together into one PNG
+ * named after the job.  The PNG is written a row of tiles at a time, so pictures can be far bigger than memory allows.
+ * <p>
+ * Usage: BatchRenderer jobFile outputFolder [threads]
+ */
+public final class BatchRenderer {
+
+    private BatchRenderer() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 3) {
+            usage();
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length == 3) {
+            try {
+                threads = Integer.parseInt(args[2]);
+            } catch (NumberFormatException ex) {
+                usage();
+            }
+            if (threads <= 0) {
+                usage();
+            }
+        }
+
+        List<Job> jobs;
+        try (Reader in = new FileReader(args[0])) {
+            jobs = JobFile.read(in);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(args[0] + ": " + ex.getMessage());
+            System.exit(1);
+            return;
+        }
+        File outputFolder = new File(args[1]);
+        if (!outputFolder.isDirectory() && !outputFolder.mkdirs()) {
+            System.err.println("Can't create " + outputFolder);
+            System.exit(1);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            // Two tiles per thread keeps every thread busy while finished rows are saved.
+            long pixels = render(jobs, outputFolder, pool, 2 * threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d jobs, %.1f megapixels in %.2f s on %d threads: %.2f jobs/s, %.2f megapixels/s%n",
+                    jobs.size(), pixels / 1e6, seconds, threads, jobs.size() / seconds, pixels / 1e6 / seconds);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: BatchRenderer jobFile outputFolder [threads]");
+        System.err.println("threads must be a whole number above 0.");
+        System.exit(2);
+    }
+
+    /**
+     * Renders every job to one PNG named after it.
+     * Tiles are drawn on the pool in the order they appear in the PNGs, a few ahead of the one being saved.
+     * Each row of tiles is written out as soon as it's finished, so only that row and the tiles
+     * being drawn are ever in memory, however big the picture.  A job's geometry is only worked out
+     * just before its first tile is queued and let go once its PNG is saved, so only the jobs being
+     * drawn hold any, however many jobs there are.
+     * @param jobs           The jobs.
+     * @param outputFolder   Where to save the pictures.
+     * @param pool           The threads to do the work on.
+     * @param tilesAhead     The most tiles to draw at once.
+     * @return   The total number of pixels rendered.
+     * @throws IOException   If a picture can't be saved.
+     * @throws InterruptedException   If interrupted while waiting for the work.
+     */
+    static long render(List<Job> jobs, File outputFolder, ExecutorService pool, int tilesAhead)
+            throws IOException, InterruptedException {
+        ArrayDeque<Future<BufferedImage>> drawing = new ArrayDeque<>();
+        // The next tile to queue: its job, row and column, and the work preparing that job.
+        int nextJob = 0;
+        int nextRow = 0;
+        int nextColumn = 0;
+        Future<?> prepared = null;
+        long pixels = 0;
+        try {
+            for (Job job : jobs) {
+                BufferedImage[] rowTiles = new BufferedImage[job.columns()];
+                int[] line = new int[job.width];
+                try (PngWriter png = new PngWriter(new FileOutputStream(new File(outputFolder, job.name + ".png")),
+                        job.width, job.height)) {
+                    for (int row = 0; row < job.rows(); ++row) {
+                        for (int column = 0; column < job.columns(); ++column) {
+                            while (drawing.size() < tilesAhead && nextJob < jobs.size()) {
+                                Job next = jobs.get(nextJob);
+                                if (nextRow == 0 && nextColumn == 0) {
+                                    // The pool starts work in the order it's queued, so the job is being
+                                    // prepared before any of its tiles start waiting for it.
+                                    prepared = pool.submit(next::prepare);
+                                }
+                                drawing.add(pool.submit(tileTask(next, nextRow, nextColumn, prepared)));
+                                nextColumn += 1;
+                                if (nextColumn == next.columns()) {
+                                    nextColumn = 0;
+                                    nextRow += 1;
+                                    if (nextRow == next.rows()) {
+                                        nextRow = 0;
+                                        nextJob += 1;
+                                    }
+                                }
+                            }
+                            rowTiles[column] = waitFor(drawing.remove());
+                        }
+                        writeTileRow(png, rowTiles, line);
+                    }
+                }
+                // Every tile of the job is drawn, so its geometry isn't needed any more.
+                job.release();
+                pixels += (long) job.width * job.height;
+            }
+        } finally {
+            for (Future<BufferedImage> future : drawing) {
+                future.cancel(true);
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Makes the work of drawing one tile once its job has been prepared.
+     * @param job        The job.
+     * @param row        The tile's row.
+     * @param column     The tile's column.
+     * @param prepared   The work preparing the job.
+     * @return   The work.
+     */
+    private static Callable<BufferedImage> tileTask(Job job, int row, int column, Future<?> prepared) {
+        return () -> {
+            waitFor(prepared);
+            return renderTile(job, row, column);
+        };
+    }
+
+    /**
+     * Draws one tile of a job.
+     * @param job      The job.
+     * @param row      The tile's row.
+     * @param column   The tile's column.
+     * @return   The tile.
+     */
+    static BufferedImage renderTile(Job job, int row, int column) {
+        int left = column * job.tileSize;
+        int top = row * job.tileSize;
+        int right = Math.min(left + job.tileSize, job.width);
+        int bottom = Math.min(top + job.tileSize, job.height);
+
+        BufferedImage image = new BufferedImage(right - left, bottom - top, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g.translate(-left, -top);
+            g.clipRect(left, top, right - left, bottom - top);
+            job.drawTile(g, left, top, right, bottom);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Writes a row of tiles to a PNG, stitching their pixels together a line at a time.
+     * @param png    The PNG.
+     * @param tiles  The row's tiles, left to right.
+     * @param line   Space for one line of the whole picture.
+     * @throws IOException   If the PNG can't be written.
+     */
+    private static void writeTileRow(PngWriter png, BufferedImage[] tiles, int[] line) throws IOException {
+        for (int y = 0; y < tiles[0].getHeight(); ++y) {
+            int x = 0;
+            for (BufferedImage tile : tiles) {
+                // TYPE_INT_RGB images keep their pixels in one int per pixel, a line after another.
+                int[] tilePixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+                System.arraycopy(tilePixels, y * tile.getWidth(), line, x, tile.getWidth());
+                x += tile.getWidth();
+            }
+            png.writeRow(line, 0);
+        }
+    }
+
+    /**
+     * Waits for a piece of work to finish, passing on its failure.
+     */
+    private static <T> T waitFor(Future<T> work) throws IOException, InterruptedException {
+        try {
+            return work.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
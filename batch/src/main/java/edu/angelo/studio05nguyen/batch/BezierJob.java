@@ -0,0 +1,69 @@
+package edu.angelo.studio05nguyen.batch;
+
+import edu.angelo.studio05nguyen.geometry.BezierGeometry;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+
+/**
+ * A cubic Bezier curve with its control polygon and numbered control points, as drawn in Bezier mode.
+ */
+class BezierJob extends Job {
+
+    /**
+     * About how long each straight piece of the curve is, in pixels.
+     */
+    private static final float PIXELS_PER_SEGMENT = 2.0f;
+
+    /**
+     * The four control points: x0, y0, x1, y1, x2, y2, x3, y3.
+     */
+    private final float[] controlPoints;
+
+    private Path2D.Float polygon;
+    private Path2D.Float curve;
+
+    BezierJob(String name, int width, int height, int tileSize, float[] controlPoints) {
+        super(name, width, height, tileSize);
+        this.controlPoints = controlPoints;
+    }
+
+    @Override
+    void prepare() {
+        polygon = new Path2D.Float();
+        polygon.moveTo(controlPoints[0], controlPoints[1]);
+        for (int i = 2; i < 8; i += 2) {
+            polygon.lineTo(controlPoints[i], controlPoints[i + 1]);
+        }
+
+        float[] polyline = BezierGeometry.flatten(controlPoints,
+                BezierGeometry.segmentsFor(controlPoints, PIXELS_PER_SEGMENT));
+        curve = new Path2D.Float(Path2D.WIND_NON_ZERO, polyline.length / 2);
+        curve.moveTo(polyline[0], polyline[1]);
+        for (int i = 2; i < polyline.length; i += 2) {
+            curve.lineTo(polyline[i], polyline[i + 1]);
+        }
+    }
+
+    @Override
+    void release() {
+        polygon = null;
+        curve = null;
+    }
+
+    @Override
+    void drawTile(Graphics2D g, int left, int top, int right, int bottom) {
+        g.setColor(Color.WHITE);
+        g.fillRect(left, top, right - left, bottom - top);
+        g.setStroke(new BasicStroke(5.0f));
+        g.setColor(new Color(227, 227, 227));
+        g.draw(polygon);
+        g.setColor(Color.BLACK);
+        g.draw(curve);
+        for (int i = 0; i < 4; ++i) {
+            drawHandle(g, controlPoints[2 * i], controlPoints[2 * i + 1], Color.RED, Integer.toString(i));
+        }
+    }
+}
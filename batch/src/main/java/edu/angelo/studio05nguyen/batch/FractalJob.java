@@ -0,0 +1,94 @@
+package edu.angelo.studio05nguyen.batch;
+
+import edu.angelo.studio05nguyen.geometry.FractalGeometry;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+
+/**
+ * A substitution fractal, as drawn in Fractal mode.
+ */
+class FractalJob extends Job {
+
+    /**
+     * The most lines kept in memory.  Deeper fractals are regenerated for every tile instead.
+     */
+    private static final int MAX_STORED_LINES = 1 << 22;
+
+    /**
+     * How far past a tile's edge a line may start and still reach into the tile, allowing for the stroke width.
+     */
+    private static final float MARGIN = 3.0f;
+
+    private final float fromX;
+    private final float fromY;
+    private final float toX;
+    private final float toY;
+    private final int depth;
+
+    /**
+     * The endpoints of every line, four floats per line, or null if there are too many to keep.
+     */
+    private float[] lines;
+
+    FractalJob(String name, int width, int height, int tileSize, float fromX, float fromY, float toX, float toY, int depth) {
+        super(name, width, height, tileSize);
+        this.fromX = fromX;
+        this.fromY = fromY;
+        this.toX = toX;
+        this.toY = toY;
+        this.depth = depth;
+    }
+
+    @Override
+    void prepare() {
+        if (FractalGeometry.countLines(depth, MAX_STORED_LINES) > 0) {
+            lines = FractalGeometry.computeLines(fromX, fromY, toX, toY, depth);
+        }
+    }
+
+    @Override
+    void release() {
+        lines = null;
+    }
+
+    @Override
+    void drawTile(final Graphics2D g, int left, int top, int right, int bottom) {
+        g.setColor(Color.WHITE);
+        g.fillRect(left, top, right - left, bottom - top);
+        g.setColor(Color.BLACK);
+        g.setStroke(new BasicStroke(3.0f));
+
+        final float minX = left - MARGIN;
+        final float minY = top - MARGIN;
+        final float maxX = right + MARGIN;
+        final float maxY = bottom + MARGIN;
+        final Line2D.Float line = new Line2D.Float();
+        if (lines != null) {
+            for (int i = 0; i < lines.length; i += 4) {
+                drawIfVisible(g, line, lines[i], lines[i + 1], lines[i + 2], lines[i + 3], minX, minY, maxX, maxY);
+            }
+        } else {
+            FractalGeometry.visitLines(new FractalGeometry.LineSink() {
+                @Override
+                public void line(float x0, float y0, float x1, float y1) {
+                    drawIfVisible(g, line, x0, y0, x1, y1, minX, minY, maxX, maxY);
+                }
+            }, fromX, fromY, toX, toY, depth);
+        }
+    }
+
+    /**
+     * Draws a line unless its bounding box misses the tile entirely.
+     */
+    private static void drawIfVisible(Graphics2D g, Line2D.Float line, float x0, float y0, float x1, float y1,
+                                      float minX, float minY, float maxX, float maxY) {
+        if (Math.max(x0, x1) < minX || Math.min(x0, x1) > maxX || Math.max(y0, y1) < minY || Math.min(y0, y1) > maxY) {
+            return;
+        }
+        line.setLine(x0, y0, x1, y1);
+        g.draw(line);
+    }
+}
@@ -0,0 +1,59 @@
+package edu.angelo.studio05nguyen.batch;
+
+import edu.angelo.studio05nguyen.geometry.Constructions;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * The circle and rectangle built on points A and B, as drawn in Geometry mode.
+ */
+class GeometryJob extends Job {
+
+    private final float ax;
+    private final float ay;
+    private final float bx;
+    private final float by;
+
+    private final float[] circle = new float[3];
+    private final float[] rect = new float[4];
+
+    GeometryJob(String name, int width, int height, int tileSize, float ax, float ay, float bx, float by) {
+        super(name, width, height, tileSize);
+        this.ax = ax;
+        this.ay = ay;
+        this.bx = bx;
+        this.by = by;
+    }
+
+    @Override
+    void prepare() {
+        Constructions.diameterCircle(ax, ay, bx, by, circle);
+        Constructions.diagonalRect(ax, ay, bx, by, rect);
+    }
+
+    @Override
+    void drawTile(Graphics2D g, int left, int top, int right, int bottom) {
+        g.setColor(Color.WHITE);
+        g.fillRect(left, top, right - left, bottom - top);
+
+        g.setColor(Color.BLACK);
+        g.fill(new Ellipse2D.Float(circle[0] - circle[2], circle[1] - circle[2], 2 * circle[2], 2 * circle[2]));
+
+        // Canvas sorts a rectangle's edges, so do the same here.
+        g.setColor(Color.BLUE);
+        g.fill(new Rectangle2D.Float(Math.min(rect[0], rect[2]), Math.min(rect[1], rect[3]),
+                Math.abs(rect[2] - rect[0]), Math.abs(rect[3] - rect[1])));
+
+        g.setColor(Color.WHITE);
+        g.setStroke(new BasicStroke(5.0f));
+        g.draw(new Line2D.Float(ax, ay, bx, by));
+
+        drawHandle(g, ax, ay, new Color(0, 170, 0), "A");
+        drawHandle(g, bx, by, Color.RED, "B");
+    }
+}
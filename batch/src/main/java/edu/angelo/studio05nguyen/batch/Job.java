@@ -0,0 +1,92 @@
+package edu.angelo.studio05nguyen.batch;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.geom.Ellipse2D;
+
+/**
+ * One picture to render: its name, its size and the parameters of what to draw.
+ * Subclasses work out their geometry once in prepare, then draw any tile of the picture.
+ * Drawing must only read what prepare built, since tiles are drawn on many threads at once.
+ */
+abstract class Job {
+
+    /** The name the picture's files are saved under. */
+    final String name;
+
+    /** The width of the whole picture, in pixels. */
+    final int width;
+
+    /** The height of the whole picture, in pixels. */
+    final int height;
+
+    /** The width and height of each tile, in pixels. */
+    final int tileSize;
+
+    /**
+     * The font labels are drawn in, the same size as in the app.
+     */
+    static final Font LABEL_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 40);
+
+    Job(String name, int width, int height, int tileSize) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Works out the geometry of the picture.  Called once, before any tile is drawn.
+     */
+    abstract void prepare();
+
+    /**
+     * Lets go of whatever prepare built, once every tile has been drawn.
+     */
+    void release() {
+    }
+
+    /**
+     * Draws the part of the picture that falls in a tile.
+     * The Graphics2D is already translated so picture coordinates can be used directly.
+     * @param g        Where to draw.
+     * @param left     The picture x coordinate of the tile's left edge.
+     * @param top      The picture y coordinate of the tile's top edge.
+     * @param right    The picture x coordinate of the tile's right edge.
+     * @param bottom   The picture y coordinate of the tile's bottom edge.
+     */
+    abstract void drawTile(Graphics2D g, int left, int top, int right, int bottom);
+
+    /**
+     * Gives the number of tile columns.
+     * @return   The number of columns.
+     */
+    int columns() {
+        return (width + tileSize - 1) / tileSize;
+    }
+
+    /**
+     * Gives the number of tile rows.
+     * @return   The number of rows.
+     */
+    int rows() {
+        return (height + tileSize - 1) / tileSize;
+    }
+
+    /**
+     * Draws a round handle with a label on it, the way the app does.
+     * @param g       Where to draw.
+     * @param x       The x coordinate of the handle's center.
+     * @param y       The y coordinate of the handle's center.
+     * @param color   The color of the handle.
+     * @param label   The text on the handle.
+     */
+    static void drawHandle(Graphics2D g, float x, float y, Color color, String label) {
+        g.setColor(color);
+        g.fill(new Ellipse2D.Float(x - 27.0f, y - 27.0f, 54.0f, 54.0f));
+        g.setColor(Color.WHITE);
+        g.setFont(LABEL_FONT);
+        g.drawString(label, x - 13.0f, y + 14.0f);
+    }
+}
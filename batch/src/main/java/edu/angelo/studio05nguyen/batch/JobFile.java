@@ -0,0 +1,178 @@
+package edu.angelo.studio05nguyen.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a job file: one job per line, a kind followed by key=value settings.
+ * Blank lines and lines starting with # are ignored.  For example:
+ * <pre>
+ * fractal  name=dragon width=8000 height=8000 from=2000,4000 to=6000,4000 depth=14
+ * bezier   name=curve  width=6000 height=4000 points=1000,1000,5000,1000,5000,3000,1000,3000
+ * geometry name=shapes width=4000 height=4000 a=1300,2700 b=2700,1300 tile=1024
+ * </pre>
+ * Coordinates are in pixels of the finished picture.  tile is optional and defaults to 2048.
+ * name becomes the picture's file name, so it may only use letters, digits, '.', '_' and '-',
+ * and no two jobs may share one.  Any other key, or a key given twice, is an error.
+ */
+final class JobFile {
+
+    /**
+     * The tile size used when a job doesn't give one.
+     */
+    static final int DEFAULT_TILE_SIZE = 2048;
+
+    /**
+     * The keys every kind of job takes.
+     */
+    private static final List<String> COMMON_KEYS = Arrays.asList("name", "width", "height", "tile");
+
+    private JobFile() {
+    }
+
+    /**
+     * Reads every job in a job file.
+     * @param in   The job file.
+     * @return   The jobs, in order.
+     * @throws IOException   If the file can't be read.
+     * @throws IllegalArgumentException   If a line isn't a valid job, or two jobs have the same name.
+     */
+    static List<Job> read(Reader in) throws IOException {
+        List<Job> jobs = new ArrayList<>();
+        // The line each name was first used on, by name in lower case, since some file systems ignore case.
+        Map<String, Integer> nameLines = new HashMap<>();
+        BufferedReader reader = new BufferedReader(in);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber += 1;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Job job;
+            try {
+                job = parse(line);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + ex.getMessage(), ex);
+            }
+            Integer firstLine = nameLines.put(job.name.toLowerCase(Locale.ROOT), lineNumber);
+            if (firstLine != null) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": name " + job.name
+                        + " is already used on line " + firstLine);
+            }
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * Turns one line of a job file into a Job.
+     * @param line   The line, without comments.
+     * @return   The job.
+     */
+    static Job parse(String line) {
+        String[] words = line.split("\\s+");
+        Map<String, String> settings = new HashMap<>();
+        for (int i = 1; i < words.length; ++i) {
+            int equals = words[i].indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected key=value but found " + words[i]);
+            }
+            String key = words[i].substring(0, equals);
+            if (settings.put(key, words[i].substring(equals + 1)) != null) {
+                throw new IllegalArgumentException(key + " is given twice");
+            }
+        }
+
+        String name = required(settings, "name");
+        // Keep the picture inside the output folder: no slashes, and nothing that means a folder.
+        if (!name.matches("[A-Za-z0-9._-]+") || name.equals(".") || name.equals("..")) {
+            throw new IllegalArgumentException("name may only use letters, digits, '.', '_' and '-' but was " + name);
+        }
+        int width = toInt(settings, "width", required(settings, "width"));
+        int height = toInt(settings, "height", required(settings, "height"));
+        int tileSize = settings.containsKey("tile") ? toInt(settings, "tile", settings.get("tile")) : DEFAULT_TILE_SIZE;
+        if (width <= 0 || height <= 0 || tileSize <= 0) {
+            throw new IllegalArgumentException("width, height and tile must be positive");
+        }
+
+        switch (words[0]) {
+            case "fractal": {
+                checkKeys(settings, "from", "to", "depth");
+                float[] from = floats(settings, "from", 2);
+                float[] to = floats(settings, "to", 2);
+                int depth = toInt(settings, "depth", required(settings, "depth"));
+                if (depth < 0) {
+                    throw new IllegalArgumentException("depth can't be negative");
+                }
+                return new FractalJob(name, width, height, tileSize, from[0], from[1], to[0], to[1], depth);
+            }
+            case "bezier":
+                checkKeys(settings, "points");
+                return new BezierJob(name, width, height, tileSize, floats(settings, "points", 8));
+            case "geometry": {
+                checkKeys(settings, "a", "b");
+                float[] a = floats(settings, "a", 2);
+                float[] b = floats(settings, "b", 2);
+                return new GeometryJob(name, width, height, tileSize, a[0], a[1], b[0], b[1]);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown kind of job " + words[0]);
+        }
+    }
+
+    /**
+     * Makes sure a job only has the common keys and the ones its kind takes, so a misspelt
+     * or misplaced setting isn't quietly ignored.
+     * @param settings   The job's settings.
+     * @param kindKeys   The keys this kind of job takes on top of the common ones.
+     */
+    private static void checkKeys(Map<String, String> settings, String... kindKeys) {
+        List<String> kindKeyList = Arrays.asList(kindKeys);
+        for (String key : settings.keySet()) {
+            if (!COMMON_KEYS.contains(key) && !kindKeyList.contains(key)) {
+                throw new IllegalArgumentException("Unknown setting " + key);
+            }
+        }
+    }
+
+    private static String required(Map<String, String> settings, String key) {
+        String value = settings.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return value;
+    }
+
+    private static int toInt(Map<String, String> settings, String key, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(key + " must be a whole number but was " + value, ex);
+        }
+    }
+
+    private static float[] floats(Map<String, String> settings, String key, int count) {
+        String[] parts = required(settings, key).split(",");
+        if (parts.length != count) {
+            throw new IllegalArgumentException(key + " needs " + count + " numbers but has " + parts.length);
+        }
+        float[] values = new float[count];
+        for (int i = 0; i < count; ++i) {
+            try {
+                values[i] = Float.parseFloat(parts[i]);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException(key + " has a bad number " + parts[i], ex);
+            }
+        }
+        return values;
+    }
+}
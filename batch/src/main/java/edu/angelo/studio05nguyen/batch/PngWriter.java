@@ -0,0 +1,150 @@
+package edu.angelo.studio05nguyen.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an 8-bit RGB PNG one row of pixels at a time, so a picture never has to be in memory all at once.
+ * Rows are filtered with the Sub filter, deflated, and cut into IDAT chunks as the compressed bytes pile up.
+ */
+final class PngWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 137, 'P', 'N', 'G', '\r', '\n', 26, '\n'};
+
+    /**
+     * The most compressed bytes kept before they're written out as an IDAT chunk.
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+
+    private final int width;
+
+    private final int height;
+
+    private final Deflater deflater = new Deflater();
+
+    /**
+     * Deflates the filtered rows into IDAT chunks.
+     */
+    private final DeflaterOutputStream pixels;
+
+    /**
+     * The filter type byte and filtered bytes of one row.
+     */
+    private final byte[] row;
+
+    /**
+     * The number of rows written so far.
+     */
+    private int rowsWritten;
+
+    /**
+     * Starts a PNG by writing its header.
+     * @param out      Where to write the PNG.  It's closed when the PNG is.
+     * @param width    The width of the picture, in pixels.
+     * @param height   The height of the picture, in pixels.
+     * @throws IOException   If the header can't be written.
+     */
+    PngWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.width = width;
+        this.height = height;
+        row = new byte[1 + 3 * width];
+        row[0] = 1; // The Sub filter: each byte is stored as its difference from the same byte of the pixel before.
+
+        this.out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8; // Bits per sample.
+        header[9] = 2; // Truecolour, no alpha.
+        // Compression, filter and interlace methods are all 0.
+        writeChunk("IHDR", header, 0, header.length);
+
+        pixels = new DeflaterOutputStream(new IdatStream(), deflater, CHUNK_SIZE);
+    }
+
+    /**
+     * Writes the next row of the picture.
+     * @param rgb      The row's pixels, packed as 0xRRGGBB.  Anything in the top byte is ignored.
+     * @param offset   Where in rgb the row starts.
+     * @throws IOException   If the row can't be written, or every row has been already.
+     */
+    void writeRow(int[] rgb, int offset) throws IOException {
+        if (rowsWritten == height) {
+            throw new IOException("All " + height + " rows have been written");
+        }
+        int previous = 0;
+        for (int x = 0; x < width; ++x) {
+            int pixel = rgb[offset + x];
+            int i = 1 + 3 * x;
+            row[i] = (byte) ((pixel >> 16) - (previous >> 16));
+            row[i + 1] = (byte) ((pixel >> 8) - (previous >> 8));
+            row[i + 2] = (byte) (pixel - previous);
+            previous = pixel;
+        }
+        pixels.write(row);
+        rowsWritten += 1;
+    }
+
+    /**
+     * Finishes the PNG and closes the stream it was written to.
+     * @throws IOException   If the PNG can't be finished, or some rows were never written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowsWritten != height) {
+                throw new IOException("Only " + rowsWritten + " of " + height + " rows were written");
+            }
+            pixels.finish();
+            writeChunk("IEND", row, 0, 0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int offset, int length) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, offset, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Turns each batch of compressed bytes the deflater hands over into an IDAT chunk.
+     */
+    private final class IdatStream extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int offset, int length) throws IOException {
+            if (length > 0) {
+                writeChunk("IDAT", b, offset, length);
+            }
+        }
+    }
+}
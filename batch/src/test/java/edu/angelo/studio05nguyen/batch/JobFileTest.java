@@ -0,0 +1,116 @@
+package edu.angelo.studio05nguyen.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for JobFile and BatchRenderer.
+ */
+public class JobFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String JOBS = "# A small sample\n"
+            + "fractal name=dragon width=300 height=200 from=50,100 to=250,100 depth=6 tile=128\n"
+            + "\n"
+            + "bezier name=curve width=200 height=200 points=20,20,180,20,180,180,20,180\n"
+            + "geometry name=shapes width=200 height=200 a=60,140 b=140,60\n";
+
+    @Test
+    public void readsEveryKindOfJob() throws Exception {
+        List<Job> jobs = JobFile.read(new StringReader(JOBS));
+        assertEquals(3, jobs.size());
+        assertTrue(jobs.get(0) instanceof FractalJob);
+        assertEquals(3, jobs.get(0).columns());
+        assertEquals(2, jobs.get(0).rows());
+        assertEquals(JobFile.DEFAULT_TILE_SIZE, jobs.get(1).tileSize);
+        assertEquals("shapes", jobs.get(2).name);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingSettings() throws Exception {
+        JobFile.read(new StringReader("bezier name=curve width=10 height=10\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNamesOutsideTheOutputFolder() {
+        JobFile.parse("geometry name=../x width=10 height=10 a=1,1 b=9,9");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsParentFolderName() {
+        JobFile.parse("geometry name=.. width=10 height=10 a=1,1 b=9,9");
+    }
+
+    @Test
+    public void rejectsUnknownSettings() {
+        try {
+            JobFile.read(new StringReader("# Tiles\ngeometry name=shapes width=10 height=10 a=1,1 b=9,9 tiles=512\n"));
+            fail("tiles should have been rejected");
+        } catch (Exception ex) {
+            assertEquals("Line 2: Unknown setting tiles", ex.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSettingsOfAnotherKind() {
+        JobFile.parse("bezier name=curve width=10 height=10 points=1,1,9,1,9,9,1,9 depth=4");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSettingsGivenTwice() {
+        JobFile.parse("geometry name=shapes width=10 height=10 a=1,1 b=9,9 a=2,2");
+    }
+
+    @Test
+    public void rejectsDuplicateNames() {
+        try {
+            JobFile.read(new StringReader(JOBS + "bezier name=Dragon width=10 height=10 points=1,1,9,1,9,9,1,9\n"));
+            fail("the second dragon should have been rejected");
+        } catch (Exception ex) {
+            assertEquals("Line 6: name Dragon is already used on line 2", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void rendersOnePicturePerJob() throws Exception {
+        List<Job> jobs = JobFile.read(new StringReader(JOBS));
+        File output = folder.getRoot();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            assertEquals(300 * 200 + 200 * 200 + 200 * 200, BatchRenderer.render(jobs, output, pool, 3));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(3, output.list().length);
+
+        // The stitched picture matches its tiles drawn one at a time.
+        BufferedImage dragon = ImageIO.read(new File(output, "dragon.png"));
+        assertEquals(300, dragon.getWidth());
+        assertEquals(200, dragon.getHeight());
+        Job job = jobs.get(0);
+        for (int row = 0; row < job.rows(); ++row) {
+            for (int column = 0; column < job.columns(); ++column) {
+                BufferedImage tile = BatchRenderer.renderTile(job, row, column);
+                for (int y = 0; y < tile.getHeight(); ++y) {
+                    for (int x = 0; x < tile.getWidth(); ++x) {
+                        assertEquals(tile.getRGB(x, y), dragon.getRGB(column * job.tileSize + x, row * job.tileSize + y));
+                    }
+                }
+            }
+        }
+        assertEquals(200, ImageIO.read(new File(output, "curve.png")).getWidth());
+        assertEquals(200, ImageIO.read(new File(output, "shapes.png")).getHeight());
+    }
+}
@@ -0,0 +1,58 @@
+package edu.angelo.studio05nguyen.geometry;
+
+/**
+ * The geometry of the cubic Bezier curves drawn in Bezier mode.
+ * Control points are given as a flat array: x0, y0, x1, y1, x2, y2, x3, y3.
+ */
+public final class BezierGeometry {
+
+    private BezierGeometry() {
+    }
+
+    /**
+     * Finds the point on a cubic Bezier curve at a given parameter.
+     * @param controlPoints   The four control points.
+     * @param t               The parameter, from 0 at the first point to 1 at the last.
+     * @param out             Gets the x and y coordinates of the point.
+     */
+    public static void pointAt(float[] controlPoints, float t, float[] out) {
+        float u = 1.0f - t;
+        float w0 = u * u * u;
+        float w1 = 3.0f * u * u * t;
+        float w2 = 3.0f * u * t * t;
+        float w3 = t * t * t;
+        out[0] = w0 * controlPoints[0] + w1 * controlPoints[2] + w2 * controlPoints[4] + w3 * controlPoints[6];
+        out[1] = w0 * controlPoints[1] + w1 * controlPoints[3] + w2 * controlPoints[5] + w3 * controlPoints[7];
+    }
+
+    /**
+     * Approximates a cubic Bezier curve with a polyline of evenly spaced parameters.
+     * @param controlPoints   The four control points.
+     * @param segments        The number of straight segments to use.
+     * @return   The polyline's points as x, y pairs, segments + 1 of them.
+     */
+    public static float[] flatten(float[] controlPoints, int segments) {
+        float[] polyline = new float[2 * (segments + 1)];
+        float[] point = new float[2];
+        for (int i = 0; i <= segments; ++i) {
+            pointAt(controlPoints, (float) i / segments, point);
+            polyline[2 * i] = point[0];
+            polyline[2 * i + 1] = point[1];
+        }
+        return polyline;
+    }
+
+    /**
+     * Picks enough segments for a curve to look smooth: about one every few pixels of control polygon.
+     * @param controlPoints   The four control points.
+     * @param pixelsPerSegment   The longest a segment should be, roughly, in pixels.
+     * @return   The number of segments.
+     */
+    public static int segmentsFor(float[] controlPoints, float pixelsPerSegment) {
+        double length = 0.0;
+        for (int i = 2; i < 8; i += 2) {
+            length += Math.hypot(controlPoints[i] - controlPoints[i - 2], controlPoints[i + 1] - controlPoints[i - 1]);
+        }
+        return Math.max(1, (int) Math.ceil(length / pixelsPerSegment));
+    }
+}
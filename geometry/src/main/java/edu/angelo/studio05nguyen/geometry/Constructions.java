@@ -0,0 +1,40 @@
+package edu.angelo.studio05nguyen.geometry;
+
+/**
+ * The shapes Geometry mode builds on its two points A and B.
+ */
+public final class Constructions {
+
+    private Constructions() {
+    }
+
+    /**
+     * Finds the circle that has the segment AB as a diameter.
+     * @param ax    The x coordinate of A.
+     * @param ay    The y coordinate of A.
+     * @param bx    The x coordinate of B.
+     * @param by    The y coordinate of B.
+     * @param out   Gets the center x, center y and radius.
+     */
+    public static void diameterCircle(float ax, float ay, float bx, float by, float[] out) {
+        out[0] = (ax + bx) / 2;
+        out[1] = (ay + by) / 2;
+        out[2] = (float) Math.sqrt((ax - bx) * (ax - bx) + (ay - by) * (ay - by)) / 2;
+    }
+
+    /**
+     * Finds the rectangle that has the segment AB as a diagonal, with A's x on the left
+     * and B's y on the top, the way Geometry mode has always drawn it.
+     * @param ax    The x coordinate of A.
+     * @param ay    The y coordinate of A.
+     * @param bx    The x coordinate of B.
+     * @param by    The y coordinate of B.
+     * @param out   Gets the left, top, right and bottom.
+     */
+    public static void diagonalRect(float ax, float ay, float bx, float by, float[] out) {
+        out[0] = ax;
+        out[1] = by;
+        out[2] = bx;
+        out[3] = ay;
+    }
+}
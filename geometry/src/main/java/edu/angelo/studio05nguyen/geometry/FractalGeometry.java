@@ -0,0 +1,139 @@
+package edu.angelo.studio05nguyen.geometry;
+
+/**
+ * The geometry of the substitution fractals drawn in Fractal mode.
+ * Each line is replaced by several smaller lines, again and again, to the given depth.
+ */
+public final class FractalGeometry {
+
+    /**
+     * Receives the lines of a fractal one at a time.
+     */
+    public interface LineSink {
+
+        /**
+         * Handles one line of the fractal.
+         * @param fromX   The x coordinate of the point the line starts at.
+         * @param fromY   The y coordinate of the point the line starts at.
+         * @param toX     The x coordinate of the point the line ends at.
+         * @param toY     The y coordinate of the point the line ends at.
+         */
+        void line(float fromX, float fromY, float toX, float toY);
+    }
+
+    /**
+     * The lines array determines how each line is turned into several lines.
+     * These values will simulate the regular paperfolding sequence.
+     */
+    private static final float[][][] LINES = {
+            {{0.00f, 0.00f}, {0.25f, 0.60f}},
+            {{0.25f, 0.25f}, {0.75f, 0.75f}},
+            {{0.75f, 0.40f}, {1.00f, 1.00f}}
+    };
+
+    private FractalGeometry() {
+    }
+
+    /**
+     * Counts the lines a fractal of the given depth is made of.
+     * @param depth   The depth of the recursion tree.
+     * @param limit   The most lines worth counting.
+     * @return   The number of lines, or -1 if there are more than limit.
+     */
+    public static int countLines(int depth, int limit) {
+        long count = 1;
+        for (int i = 0; i < depth; i += 1) {
+            count *= LINES.length;
+            if (count > limit) {
+                return -1;
+            }
+        }
+        return (int) count;
+    }
+
+    /**
+     * Computes all the lines of a fractal into a new array, ready for drawing.
+     * Use countLines first, since the array grows very quickly with depth.
+     * @param fromX   The x coordinate of the point to draw from.
+     * @param fromY   The y coordinate of the point to draw from.
+     * @param toX     The x coordinate of the point to draw to.
+     * @param toY     The y coordinate of the point to draw to.
+     * @param depth   The depth of the recursion tree to use.
+     * @return   The endpoints of every line, four floats per line.
+     */
+    public static float[] computeLines(float fromX, float fromY, float toX, float toY, int depth) {
+        int count = countLines(depth, Integer.MAX_VALUE / 4);
+        if (count < 0) {
+            throw new IllegalArgumentException("Fractal depth " + depth + " has too many lines to store");
+        }
+        float[] lines = new float[4 * count];
+        computeLines(lines, 0, fromX, fromY, toX, toY, depth);
+        return lines;
+    }
+
+    /**
+     * Recursively computes the lines of a fractal into an array.
+     * @param lines    The array to store the endpoints of the lines in.
+     * @param offset   The index in lines to store the first line at.
+     * @param fromX    The x coordinate of the point to draw from.
+     * @param fromY    The y coordinate of the point to draw from.
+     * @param toX      The x coordinate of the point to draw to.
+     * @param toY      The y coordinate of the point to draw to.
+     * @param depth    The depth of the recursion tree to use.
+     * @return   The index in lines just past the last line stored.
+     */
+    public static int computeLines(float[] lines, int offset, float fromX, float fromY, float toX, float toY, int depth) {
+        if (depth <= 0) {
+            lines[offset] = fromX;
+            lines[offset + 1] = fromY;
+            lines[offset + 2] = toX;
+            lines[offset + 3] = toY;
+            return offset + 4;
+        }
+        float cosDistance = (toX - fromX + toY - fromY) / 2.0f;
+        float sinDistance = (fromX - toX + toY - fromY) / 2.0f;
+        for (int whichLine = 0; whichLine < LINES.length; whichLine += 1) {
+            offset = computeLines(
+                    lines,
+                    offset,
+                    fromX + LINES[whichLine][0][0] * cosDistance - LINES[whichLine][0][1] * sinDistance,
+                    fromY + LINES[whichLine][0][0] * sinDistance + LINES[whichLine][0][1] * cosDistance,
+                    fromX + LINES[whichLine][1][0] * cosDistance - LINES[whichLine][1][1] * sinDistance,
+                    fromY + LINES[whichLine][1][0] * sinDistance + LINES[whichLine][1][1] * cosDistance,
+                    depth - 1
+            );
+        }
+        return offset;
+    }
+
+    /**
+     * Recursively hands every line of a fractal to a LineSink without storing them,
+     * for fractals too deep to keep in memory.
+     * @param sink    Where to send the lines.
+     * @param fromX   The x coordinate of the point to draw from.
+     * @param fromY   The y coordinate of the point to draw from.
+     * @param toX     The x coordinate of the point to draw to.
+     * @param toY     The y coordinate of the point to draw to.
+     * @param depth   The depth of the recursion tree to use.
+     */
+    public static void visitLines(LineSink sink, float fromX, float fromY, float toX, float toY, int depth) {
+        if (depth <= 0) {
+            // We've recursed enough, so just hand over a line.
+            sink.line(fromX, fromY, toX, toY);
+            return;
+        }
+        // We need to recurse some more.  Turn this line into several.
+        float cosDistance = (toX - fromX + toY - fromY) / 2.0f;
+        float sinDistance = (fromX - toX + toY - fromY) / 2.0f;
+        for (int whichLine = 0; whichLine < LINES.length; whichLine += 1) {
+            visitLines(
+                    sink,
+                    fromX + LINES[whichLine][0][0] * cosDistance - LINES[whichLine][0][1] * sinDistance,
+                    fromY + LINES[whichLine][0][0] * sinDistance + LINES[whichLine][0][1] * cosDistance,
+                    fromX + LINES[whichLine][1][0] * cosDistance - LINES[whichLine][1][1] * sinDistance,
+                    fromY + LINES[whichLine][1][0] * sinDistance + LINES[whichLine][1][1] * cosDistance,
+                    depth - 1
+            );
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package edu.angelo.studio05nguyen.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for BezierGeometry.
+ */
+public class BezierGeometryTest {
+
+    @Test
+    public void flattensBezierThroughEndpoints() {
+        float[] control = {0.0f, 0.0f, 0.0f, 100.0f, 100.0f, 100.0f, 100.0f, 0.0f};
+        float[] polyline = BezierGeometry.flatten(control, 10);
+        assertEquals(22, polyline.length);
+        assertEquals(0.0, polyline[0], 0.0);
+        assertEquals(100.0, polyline[20], 1e-4);
+        assertEquals(50.0, polyline[10], 1e-4);
+        assertEquals(75.0, polyline[11], 1e-4);
+    }
+}
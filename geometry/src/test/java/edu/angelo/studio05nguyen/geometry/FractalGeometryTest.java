@@ -0,0 +1,45 @@
+package edu.angelo.studio05nguyen.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for FractalGeometry.
+ */
+public class FractalGeometryTest {
+
+    @Test
+    public void countsLines() {
+        assertEquals(1, FractalGeometry.countLines(0, 100));
+        assertEquals(81, FractalGeometry.countLines(4, 100));
+        assertEquals(-1, FractalGeometry.countLines(5, 100));
+    }
+
+    @Test
+    public void keepsEndpoints() {
+        float[] lines = FractalGeometry.computeLines(10.0f, 20.0f, 110.0f, 20.0f, 3);
+        assertEquals(4 * 27, lines.length);
+        assertEquals(10.0, lines[0], 1e-4);
+        assertEquals(20.0, lines[1], 1e-4);
+        assertEquals(110.0, lines[lines.length - 2], 1e-4);
+        assertEquals(20.0, lines[lines.length - 1], 1e-4);
+    }
+
+    @Test
+    public void visitsTheSameLinesItComputes() {
+        final float[] lines = FractalGeometry.computeLines(0.0f, 0.0f, 50.0f, 80.0f, 4);
+        final int[] index = new int[1];
+        FractalGeometry.visitLines(new FractalGeometry.LineSink() {
+            @Override
+            public void line(float fromX, float fromY, float toX, float toY) {
+                assertEquals(lines[index[0]], fromX, 0.0);
+                assertEquals(lines[index[0] + 1], fromY, 0.0);
+                assertEquals(lines[index[0] + 2], toX, 0.0);
+                assertEquals(lines[index[0] + 3], toY, 0.0);
+                index[0] += 4;
+            }
+        }, 0.0f, 0.0f, 50.0f, 80.0f, 4);
+        assertEquals(lines.length, index[0]);
+    }
+}